@@ -0,0 +1,113 @@
+package qaproject.bench;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import qaproject.util.CSVReader;
+import qaproject.util.MappedCSVReader;
+
+/**
+ * Benchmarks for loading CSV test data.
+ * Snapshots are disabled in the forked JVM so that every invocation measures a real parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dqaproject.data.snapshot=false")
+public class CSVReaderBenchmark {
+
+    @Param({ "1000", "100000" })
+    private int rows;
+
+    @Param({ "5", "50" })
+    private int columns;
+
+    private File directory;
+    private String filePath;
+    private String[] projection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("csv-bench").toFile();
+        filePath = DataFiles.csv(directory, rows, columns).getPath();
+        projection = DataFiles.projection(columns);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DataFiles.delete(directory);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> readCSV() throws IOException {
+        return CSVReader.readCSV(filePath);
+    }
+
+    @Benchmark
+    public Object[][] readCSVAsDataProvider() throws IOException {
+        return CSVReader.readCSVAsDataProvider(filePath);
+    }
+
+    @Benchmark
+    public Object[][] readCSVAsDataProviderProjected() throws IOException {
+        return CSVReader.readCSVAsDataProvider(filePath, ",", projection);
+    }
+
+    @Benchmark
+    public void readCSVAsIterator(Blackhole blackhole) throws IOException {
+        Iterator<Object[]> iterator = CSVReader.readCSVAsIterator(filePath);
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    @Benchmark
+    public void mappedReadCSV(Blackhole blackhole) throws IOException {
+        // Mapped rows decode lazily, so reading every value is part of the cost
+        for (Map<String, String> row : MappedCSVReader.readCSV(filePath)) {
+            for (String value : row.values()) {
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    /**
+     * Time until a streaming DataProvider can hand TestNG its first row.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 50)
+    @Measurement(iterations = 200)
+    public Object[] timeToFirstRow() throws IOException {
+        Iterator<Object[]> iterator = CSVReader.readCSVAsIterator(filePath);
+        try {
+            return iterator.next();
+        } finally {
+            ((Closeable) iterator).close();
+        }
+    }
+}
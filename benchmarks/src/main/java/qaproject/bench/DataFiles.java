@@ -0,0 +1,125 @@
+package qaproject.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Generates synthetic data files for the benchmarks.
+ * Files are deterministic for a given size and width, so results are comparable across runs.
+ * Columns alternate between numbers and words, and every tenth row carries a quoted value with
+ * an embedded delimiter and an escaped quote, like real test data exported from a spreadsheet.
+ */
+final class DataFiles {
+
+    static final String SHEET_NAME = "Data";
+
+    private static final String[] WORDS = {
+        "mastodon", "selenium", "automation", "testing", "timeline", "federation", "toot", "boost"
+    };
+
+    private DataFiles() {
+    }
+
+    /**
+     * Writes a CSV file with a header row and the given number of data rows and columns.
+     */
+    static File csv(File directory, int rows, int columns) throws IOException {
+        File file = new File(directory, "data_" + rows + "x" + columns + ".csv");
+        Random random = new Random(42);
+
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (int c = 0; c < columns; c++) {
+                out.write(c == 0 ? "" : ",");
+                out.write(columnName(c));
+            }
+            out.write('\n');
+
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    out.write(c == 0 ? "" : ",");
+                    if (c % 2 == 0) {
+                        out.write(Integer.toString(random.nextInt(100_000)));
+                    } else if (r % 10 == 0 && c == 1) {
+                        out.write("\"" + word(random) + ", \"\"quoted\"\" " + r + "\"");
+                    } else {
+                        out.write(word(random));
+                    }
+                }
+                out.write('\n');
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Writes an XLSX file with one sheet, a header row and the given number of data rows and columns.
+     * Even columns hold numeric cells and odd columns shared-string cells.
+     */
+    static File xlsx(File directory, int rows, int columns) throws IOException {
+        File file = new File(directory, "data_" + rows + "x" + columns + ".xlsx");
+        Random random = new Random(42);
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(1000);
+        try (OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet(SHEET_NAME);
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < columns; c++) {
+                header.createCell(c).setCellValue(columnName(c));
+            }
+
+            for (int r = 0; r < rows; r++) {
+                Row row = sheet.createRow(r + 1);
+                for (int c = 0; c < columns; c++) {
+                    if (c % 2 == 0) {
+                        row.createCell(c).setCellValue(random.nextInt(100_000));
+                    } else {
+                        row.createCell(c).setCellValue(word(random));
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return file;
+    }
+
+    /**
+     * Returns three columns spread across the file: first, middle and last.
+     */
+    static String[] projection(int columns) {
+        return new String[] { columnName(0), columnName(columns / 2), columnName(columns - 1) };
+    }
+
+    /**
+     * Deletes a generated directory and everything in it, including snapshots written next to the files.
+     */
+    static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static String columnName(int column) {
+        return "column" + column;
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
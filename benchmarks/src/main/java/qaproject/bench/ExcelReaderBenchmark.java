@@ -0,0 +1,120 @@
+package qaproject.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import qaproject.util.DataRow;
+import qaproject.util.ExcelReader;
+import qaproject.util.StreamingExcelReader;
+
+/**
+ * Benchmarks for loading Excel test data with the DOM and the streaming readers.
+ * Snapshots are disabled in the forked JVM so that every invocation measures a real parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dqaproject.data.snapshot=false")
+public class ExcelReaderBenchmark {
+
+    /**
+     * Thrown by the row handler to stop a streaming read after the first row.
+     */
+    private static final class FirstRowReached extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private transient DataRow row;
+
+        FirstRowReached() {
+            super(null, null, false, false);
+        }
+    }
+
+    @Param({ "1000", "20000" })
+    private int rows;
+
+    @Param({ "5", "50" })
+    private int columns;
+
+    private File directory;
+    private String filePath;
+    private String[] projection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("xlsx-bench").toFile();
+        filePath = DataFiles.xlsx(directory, rows, columns).getPath();
+        projection = DataFiles.projection(columns);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DataFiles.delete(directory);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> readSheet() throws IOException {
+        return ExcelReader.readSheet(filePath, DataFiles.SHEET_NAME);
+    }
+
+    @Benchmark
+    public Object[][] readSheetAsDataProvider() throws IOException {
+        return ExcelReader.readSheetAsDataProvider(filePath, DataFiles.SHEET_NAME);
+    }
+
+    @Benchmark
+    public Object[][] readSheetAsDataProviderProjected() throws IOException {
+        return ExcelReader.readSheetAsDataProvider(filePath, DataFiles.SHEET_NAME, projection);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> streamingReadSheet() throws IOException {
+        return StreamingExcelReader.readSheet(filePath, DataFiles.SHEET_NAME);
+    }
+
+    @Benchmark
+    public Object[][] streamingReadSheetAsDataProviderProjected() throws IOException {
+        return StreamingExcelReader.readSheetAsDataProvider(filePath, DataFiles.SHEET_NAME, projection);
+    }
+
+    /**
+     * Time until the streaming reader has produced its first row.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 20)
+    @Measurement(iterations = 100)
+    public DataRow timeToFirstRow() throws IOException {
+        FirstRowReached stop = new FirstRowReached();
+        try {
+            StreamingExcelReader.readSheet(filePath, DataFiles.SHEET_NAME, row -> {
+                stop.row = row;
+                throw stop;
+            });
+        } catch (FirstRowReached e) {
+            return e.row;
+        }
+        throw new IllegalStateException("Sheet has no data rows");
+    }
+}
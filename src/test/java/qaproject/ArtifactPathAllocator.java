@@ -0,0 +1,96 @@
+package qaproject;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates collision-free paths for test artifacts such as screenshots and diff images.
+ * File names end with a sequence number that is unique within the JVM, so two captures in the
+ * same second never overwrite each other. Each test thread writes into its own subdirectory,
+ * named after the run id and a worker number, which is created the first time the thread uses it;
+ * the run id keeps parallel JVMs writing to the same output directory apart.
+ *
+ * <p>The run id can be set with {@code -Dqaproject.runId}; by default it is derived from the
+ * start time and process id.</p>
+ */
+public class ArtifactPathAllocator {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private static final String RUN_ID = System.getProperty("qaproject.runId", defaultRunId());
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final AtomicInteger WORKERS = new AtomicInteger();
+
+    private static final ThreadLocal<Integer> WORKER_ID = ThreadLocal.withInitial(WORKERS::incrementAndGet);
+
+    /**
+     * Worker directories already created by the current thread, by base directory.
+     */
+    private static final ThreadLocal<Map<String, File>> WORKER_DIRECTORIES = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Returns the id of this test run.
+     *
+     * @return Run id used in worker directory names
+     */
+    public static String runId() {
+        return RUN_ID;
+    }
+
+    /**
+     * Builds a unique file name of the form {@code testName_label_yyyyMMdd_HHmmss_sequence.extension}.
+     *
+     * @param testName Name of the test
+     * @param label Optional label such as the capture reason or element name
+     * @param extension File extension without the dot
+     * @return File name that is unique within this run
+     */
+    public static String fileName(String testName, String label, String extension) {
+        return testName + "_" + (label != null ? label + "_" : "") + LocalDateTime.now().format(TIMESTAMP)
+                + "_" + SEQUENCE.incrementAndGet() + "." + extension;
+    }
+
+    /**
+     * Returns the current thread's subdirectory of a base directory, creating it on first use.
+     *
+     * @param baseDirectory Directory that holds the worker directories
+     * @return Directory for the current thread to write artifacts to
+     */
+    public static File workerDirectory(String baseDirectory) {
+        Map<String, File> directories = WORKER_DIRECTORIES.get();
+        File directory = directories.get(baseDirectory);
+        if (directory == null) {
+            directory = new File(baseDirectory, RUN_ID + "-w" + WORKER_ID.get());
+            directory.mkdirs();
+            directories.put(baseDirectory, directory);
+        }
+        return directory;
+    }
+
+    /**
+     * Allocates a path for a new artifact in the current thread's subdirectory of a base directory.
+     *
+     * @param baseDirectory Directory that holds the worker directories
+     * @param testName Name of the test
+     * @param label Optional label such as the capture reason or element name
+     * @param extension File extension without the dot
+     * @return Path to write the artifact to
+     */
+    public static String allocate(String baseDirectory, String testName, String label, String extension) {
+        return new File(workerDirectory(baseDirectory), fileName(testName, label, extension)).getPath();
+    }
+
+    private static String defaultRunId() {
+        // The JVM name is "pid@host" on common JVMs
+        String jvmName = ManagementFactory.getRuntimeMXBean().getName();
+        int at = jvmName.indexOf('@');
+        String pid = at > 0 ? jvmName.substring(0, at) : Integer.toString(jvmName.hashCode() & 0xffff, 36);
+        return Long.toString(System.currentTimeMillis(), 36) + "-" + pid;
+    }
+}
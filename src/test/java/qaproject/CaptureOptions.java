@@ -0,0 +1,176 @@
+package qaproject;
+
+import org.openqa.selenium.Rectangle;
+
+/**
+ * Image format, quality, scale and area of a screenshot.
+ * Options other than a plain PNG of the viewport are captured through Chrome DevTools
+ * (see {@link DevToolsCapture}). Instances are immutable; the {@code with} methods return copies.
+ *
+ * <p>The default options for a run come from system properties, so a build profile can switch
+ * every capture to a cheaper format:</p>
+ * <ul>
+ *   <li>{@code qaproject.screenshots.format}: {@code png} (default), {@code jpeg} or {@code webp}</li>
+ *   <li>{@code qaproject.screenshots.quality}: JPEG/WebP quality from 0 to 100 (default 80)</li>
+ *   <li>{@code qaproject.screenshots.scale}: Downscale factor, for example 0.5 (default 1)</li>
+ *   <li>{@code qaproject.screenshots.fullPage}: Capture the whole page instead of the viewport</li>
+ * </ul>
+ */
+public class CaptureOptions {
+
+    /**
+     * Image formats supported by {@code Page.captureScreenshot}.
+     */
+    public enum Format {
+        PNG("png", "png"),
+        JPEG("jpeg", "jpg"),
+        WEBP("webp", "webp");
+
+        private final String protocolName;
+        private final String extension;
+
+        Format(String protocolName, String extension) {
+            this.protocolName = protocolName;
+            this.extension = extension;
+        }
+
+        /**
+         * @return Format name used by the DevTools protocol
+         */
+        public String getProtocolName() {
+            return protocolName;
+        }
+
+        /**
+         * @return File extension without the dot
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final int DEFAULT_QUALITY = 80;
+
+    private final Format format;
+    private final int quality;
+    private final double scale;
+    private final Rectangle clip;
+    private final boolean fullPage;
+
+    private CaptureOptions(Format format, int quality, double scale, Rectangle clip, boolean fullPage) {
+        if (quality < 0 || quality > 100) {
+            throw new IllegalArgumentException("Quality must be between 0 and 100: " + quality);
+        }
+        if (!(scale > 0 && scale <= 1)) {
+            throw new IllegalArgumentException("Scale must be greater than 0 and at most 1: " + scale);
+        }
+        this.format = format;
+        this.quality = quality;
+        this.scale = scale;
+        this.clip = clip;
+        this.fullPage = fullPage;
+    }
+
+    /**
+     * @return Lossless PNG of the viewport, the same image the WebDriver endpoint returns
+     */
+    public static CaptureOptions png() {
+        return new CaptureOptions(Format.PNG, DEFAULT_QUALITY, 1, null, false);
+    }
+
+    /**
+     * @param quality Compression quality from 0 to 100
+     * @return JPEG of the viewport
+     */
+    public static CaptureOptions jpeg(int quality) {
+        return new CaptureOptions(Format.JPEG, quality, 1, null, false);
+    }
+
+    /**
+     * @param quality Compression quality from 0 to 100
+     * @return WebP of the viewport
+     */
+    public static CaptureOptions webp(int quality) {
+        return new CaptureOptions(Format.WEBP, quality, 1, null, false);
+    }
+
+    /**
+     * Reads the default options for this run from system properties.
+     *
+     * @return Options configured for the run, or PNG if nothing is configured
+     */
+    public static CaptureOptions fromProperties() {
+        String format = System.getProperty("qaproject.screenshots.format", "png");
+        Format parsed;
+        try {
+            parsed = Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown screenshot format: " + format);
+        }
+
+        double scale = Double.parseDouble(System.getProperty("qaproject.screenshots.scale", "1"));
+        return new CaptureOptions(parsed, Integer.getInteger("qaproject.screenshots.quality", DEFAULT_QUALITY),
+                scale, null, Boolean.getBoolean("qaproject.screenshots.fullPage"));
+    }
+
+    /**
+     * @param scale Downscale factor, greater than 0 and at most 1
+     * @return Copy of these options with the given scale
+     */
+    public CaptureOptions withScale(double scale) {
+        return new CaptureOptions(format, quality, scale, clip, fullPage);
+    }
+
+    /**
+     * @param clip Area of the page to capture, in CSS pixels relative to the top of the document
+     * @return Copy of these options that captures only the given area
+     */
+    public CaptureOptions withClip(Rectangle clip) {
+        return new CaptureOptions(format, quality, scale, clip, false);
+    }
+
+    /**
+     * @param fullPage Whether to capture the whole scrollable page instead of the viewport
+     * @return Copy of these options with the given full-page setting
+     */
+    public CaptureOptions withFullPage(boolean fullPage) {
+        return new CaptureOptions(format, quality, scale, fullPage ? null : clip, fullPage);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public int getQuality() {
+        return quality;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public Rectangle getClip() {
+        return clip;
+    }
+
+    public boolean isFullPage() {
+        return fullPage;
+    }
+
+    /**
+     * @return File extension for screenshots taken with these options
+     */
+    public String getExtension() {
+        return format.getExtension();
+    }
+
+    /**
+     * Checks whether these options describe what the WebDriver screenshot endpoint returns anyway,
+     * so no DevTools call is needed.
+     *
+     * @return true for a full-resolution PNG of the viewport
+     */
+    public boolean isPlainPng() {
+        return format == Format.PNG && scale == 1 && clip == null && !fullPage;
+    }
+}
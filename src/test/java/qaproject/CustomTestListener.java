@@ -1,30 +1,28 @@
 package qaproject;
 
+import java.util.List;
+
 import org.openqa.selenium.WebDriver;
+import org.testng.IConfigurationListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 
+import qaproject.util.WorkbookSession;
+
 /**
  * Custom TestNG listener that provides enhanced test reporting and screenshot capture
  */
 
-public class CustomTestListener implements ITestListener {
+public class CustomTestListener implements ITestListener, ISuiteListener, IConfigurationListener {
     
     @Override
     public void onStart(ITestContext context) {
         System.out.println("========== Starting Test Suite: " + context.getName() + " ==========");
     }
 
-    @Override
-    public void onFinish(ITestContext context) {
-        System.out.println("\n========== Finished Test Suite: " + context.getName() + " ==========");
-        System.out.println("Total tests run: " + context.getAllTestMethods().length);
-        System.out.println("Passed tests: " + context.getPassedTests().size());
-        System.out.println("Failed tests: " + context.getFailedTests().size());
-        System.out.println("Skipped tests: " + context.getSkippedTests().size());
-    }
-
     @Override
     public void onTestStart(ITestResult result) {
         System.out.println("\nStarting test: " + result.getMethod().getMethodName());
@@ -34,6 +32,9 @@ public class CustomTestListener implements ITestListener {
     public void onTestSuccess(ITestResult result) {
         System.out.println("Test Passed: " + result.getMethod().getMethodName());
         
+        // Step screenshots are only needed for failures
+        StepRecorder.discard();
+        
         // Optionally capture screenshot on success (can be enabled/disabled based on configuration)
         // captureScreenshot(result, "success");
     }
@@ -43,10 +44,10 @@ public class CustomTestListener implements ITestListener {
         System.out.println("Test Failed: " + result.getMethod().getMethodName());
         System.out.println("Failure details: " + result.getThrowable().getMessage());
         
-        // Capture screenshot on failure
+        // Write out the buffered step screenshots, then capture the failure itself
+        flushStepScreenshots();
         captureScreenshot(result, "failure");
     }
-    }
 
     @Override
     public void onTestSkipped(ITestResult result) {
@@ -54,6 +55,7 @@ public class CustomTestListener implements ITestListener {
         if (result.getThrowable() != null) {
             System.out.println("Skip reason: " + result.getThrowable().getMessage());
         }
+        StepRecorder.discard();
         
         // Optionally capture screenshot on skipped tests
         // captureScreenshot(result, "skipped");
@@ -64,9 +66,35 @@ public class CustomTestListener implements ITestListener {
         System.out.println("Test Failed Within Success Percentage: " + result.getMethod().getMethodName());
         
         // Capture screenshot for tests that failed but within success percentage
+        flushStepScreenshots();
         captureScreenshot(result, "failedWithinSuccessPercentage");
     }
     
+    @Override
+    public void onConfigurationFailure(ITestResult result) {
+        System.out.println("Configuration Failed: " + result.getMethod().getMethodName());
+        
+        // Steps taken by a failed setup or teardown method are never reported through a test result
+        flushStepScreenshots();
+    }
+
+    @Override
+    public void onConfigurationSkip(ITestResult result) {
+        StepRecorder.discard();
+    }
+    
+    /**
+     * Writes the step screenshots buffered by the recorder for the failed test
+     */
+    private void flushStepScreenshots() {
+        if (StepRecorder.isEnabled()) {
+            List<String> paths = StepRecorder.flush();
+            if (!paths.isEmpty()) {
+                System.out.println("Step screenshots saved: " + paths.size());
+            }
+        }
+    }
+    
     /**
      * Helper method to capture screenshots
      * 
@@ -91,8 +119,7 @@ public class CustomTestListener implements ITestListener {
     }
     
     /**
-     * Cleanup old screenshots when test suite finishes
-     * Default retention policy: keep screenshots for 30 days
+     * Prints the results of a test context when it finishes
      */
     @Override
     public void onFinish(ITestContext context) {
@@ -101,8 +128,26 @@ public class CustomTestListener implements ITestListener {
         System.out.println("Passed tests: " + context.getPassedTests().size());
         System.out.println("Failed tests: " + context.getFailedTests().size());
         System.out.println("Skipped tests: " + context.getSkippedTests().size());
+    }
+    
+    /**
+     * Releases shared resources once the whole suite has finished
+     * Default retention policy: keep screenshots for 30 days
+     * 
+     * @param suite The finished suite
+     */
+    @Override
+    public void onFinish(ISuite suite) {
+        // Close workbook sessions opened by data providers
+        WorkbookSession.closeAll();
+        
+        // Drop step screenshots that no test result flushed or discarded, such as teardown steps
+        StepRecorder.discardAll();
+        
+        // Write out screenshots still queued by the asynchronous writer
+        ScreenshotWriter.flush();
         
-        // Clean up old screenshots (keep for 30 days by default)
-        ScreenshotUtil.cleanupOldScreenshots(30);
+        // Clean up old screenshots in the background once no test captures any more (keep for 30 days by default)
+        ScreenshotUtil.cleanupOldScreenshotsAsync(30);
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package qaproject;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Map;
 
 import org.openqa.selenium.By;
@@ -14,8 +15,11 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import io.github.bonigarcia.wdm.WebDriverManager;
-import qaproject.util.CSVReader;
-import qaproject.util.ExcelReader;
+import qaproject.util.ColumnType;
+import qaproject.util.DataShard;
+import qaproject.util.DataSourceCache;
+import qaproject.util.TypedDataSet;
+import qaproject.util.TypedRow;
 
 /**
  * Demo test class that demonstrates how to use data-driven testing with
@@ -65,8 +69,8 @@ public class DataDrivenDemoTest {
             return new Object[0][0];
         }
         
-        // Read data from the "LoginTests" sheet
-        return ExcelReader.readSheetAsDataProvider(excelFilePath, "LoginTests");
+        // Read data from the "LoginTests" sheet (parsed once and shared across test classes)
+        return DataSourceCache.readSheetAsDataProvider(excelFilePath, "LoginTests");
     }
     
     /**
@@ -95,8 +99,10 @@ public class DataDrivenDemoTest {
             return new Object[0][0];
         }
         
-        // Read data from the CSV file
-        return CSVReader.readCSVAsDataProvider(csvFilePath);
+        // Read data from the CSV file (parsed once and shared across test classes), keeping the rows
+        // of this JVM's shard; expectedResults is converted to an int column once here instead of in every test
+        return TypedDataSet.of(DataShard.current().select(DataSourceCache.readCSV(csvFilePath)),
+                Collections.singletonMap("expectedResults", ColumnType.INT)).toDataProvider();
     }
     
     /**
@@ -139,13 +145,13 @@ public class DataDrivenDemoTest {
     /**
      * Example test that uses CSV data for search testing.
      * 
-     * @param testData Map containing test data from CSV
+     * @param testData Typed row of test data from CSV
      */
     @Test(dataProvider = "csvDataProvider", groups = {"dataTests"})
-    public void testSearchWithCSVData(Map<String, String> testData) {
+    public void testSearchWithCSVData(TypedRow testData) {
         // Extract test data
         String searchTerm = testData.get("searchTerm");
-        String expectedResults = testData.get("expectedResults");
+        int expectedResultCount = testData.getInt("expectedResults");
         
         System.out.println("Running search test with: " + searchTerm);
         
@@ -157,7 +163,6 @@ public class DataDrivenDemoTest {
         driver.findElement(By.id("searchButton")).click();
         
         // Verify results (replace with actual verification logic)
-        int expectedResultCount = Integer.parseInt(expectedResults);
         int actualResultCount = driver.findElements(By.className("search-result")).size();
         
         // Take screenshot for verification
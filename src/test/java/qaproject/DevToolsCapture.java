@@ -0,0 +1,103 @@
+package qaproject;
+
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+
+/**
+ * Screenshot backend that calls Chrome DevTools {@code Page.captureScreenshot} directly.
+ * Unlike the WebDriver endpoint, it can encode JPEG or WebP at a chosen quality, downscale the
+ * image in the browser, capture only a clip rectangle and capture beyond the viewport, so far fewer
+ * bytes are encoded and transferred per screenshot.
+ */
+public class DevToolsCapture {
+
+    /**
+     * Checks whether the driver can run DevTools commands.
+     *
+     * @param driver WebDriver instance
+     * @return true for Chrome and other Chromium-based drivers
+     */
+    public static boolean isSupported(WebDriver driver) {
+        return driver instanceof ChromiumDriver;
+    }
+
+    /**
+     * Captures a screenshot with the given options.
+     *
+     * @param driver Chromium-based WebDriver instance
+     * @param options Format, quality, scale and area of the screenshot
+     * @return Encoded image bytes
+     */
+    public static byte[] capture(WebDriver driver, CaptureOptions options) {
+        ChromiumDriver chromium = (ChromiumDriver) driver;
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", options.getFormat().getProtocolName());
+        if (options.getFormat() != CaptureOptions.Format.PNG) {
+            params.put("quality", options.getQuality());
+        }
+
+        Map<String, Object> clip = clip(chromium, options);
+        if (clip != null) {
+            params.put("clip", clip);
+            // Clips are in document coordinates and may lie outside the viewport
+            params.put("captureBeyondViewport", true);
+        }
+
+        Map<String, Object> result = chromium.executeCdpCommand("Page.captureScreenshot", params);
+        return Base64.getDecoder().decode((String) result.get("data"));
+    }
+
+    /**
+     * Builds the clip parameter. Scaling requires a clip, so a scaled viewport capture clips to the viewport.
+     */
+    private static Map<String, Object> clip(ChromiumDriver driver, CaptureOptions options) {
+        Rectangle area = options.getClip();
+        if (area != null) {
+            return clip(area.getX(), area.getY(), area.getWidth(), area.getHeight(), options.getScale());
+        }
+
+        if (options.isFullPage()) {
+            Map<String, Object> content = layoutMetric(driver, "cssContentSize", "contentSize");
+            return clip(0, 0, number(content, "width"), number(content, "height"), options.getScale());
+        }
+
+        if (options.getScale() != 1) {
+            Map<String, Object> viewport = layoutMetric(driver, "cssLayoutViewport", "layoutViewport");
+            return clip(number(viewport, "pageX"), number(viewport, "pageY"),
+                    number(viewport, "clientWidth"), number(viewport, "clientHeight"), options.getScale());
+        }
+        return null;
+    }
+
+    private static Map<String, Object> clip(double x, double y, double width, double height, double scale) {
+        Map<String, Object> clip = new HashMap<>();
+        clip.put("x", x);
+        clip.put("y", y);
+        clip.put("width", width);
+        clip.put("height", height);
+        clip.put("scale", scale);
+        return clip;
+    }
+
+    /**
+     * Reads one entry of {@code Page.getLayoutMetrics}. Newer Chrome versions report CSS pixels under
+     * the {@code css} names; older ones only have the legacy names.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> layoutMetric(ChromiumDriver driver, String name, String legacyName) {
+        Map<String, Object> metrics = driver.executeCdpCommand("Page.getLayoutMetrics", Collections.emptyMap());
+        Object metric = metrics.containsKey(name) ? metrics.get(name) : metrics.get(legacyName);
+        return (Map<String, Object>) metric;
+    }
+
+    private static double number(Map<String, Object> map, String key) {
+        return ((Number) map.get(key)).doubleValue();
+    }
+}
@@ -0,0 +1,312 @@
+package qaproject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Date-partitioned screenshot storage with index-based retention.
+ * Screenshots are written to one directory per day ({@code test-output/screenshots/yyyy-MM-dd}),
+ * with a subdirectory per test thread (see {@link ArtifactPathAllocator}), and {@code partitions.tsv}
+ * records the size and last write time of every partition. Retention then works on whole partitions:
+ * it only lists the partition directories and reads the index, instead of checking the modification
+ * time of every screenshot.
+ *
+ * <p>Besides the age limit, an optional quota ({@code -Dqaproject.screenshots.quotaMB}) deletes the
+ * least recently written partitions until the total size fits. The partition of the current day is
+ * never deleted. Captures in the content-addressed {@link ScreenshotStore} belong to the partition of
+ * the day they were taken on, even if no directory exists for it: their index entries are removed with
+ * the partition, and a stored image is deleted once no remaining partition refers to it.</p>
+ *
+ * <p>Retention holds a file lock on {@code partitions.lock} while it reads and rewrites the index, so
+ * JVMs sharing the screenshot directory do not overwrite each other's updates.</p>
+ */
+public class ScreenshotArchive {
+
+    static final String INDEX_FILE = ScreenshotUtil.SCREENSHOT_DIR + File.separator + "partitions.tsv";
+    static final String LOCK_FILE = ScreenshotUtil.SCREENSHOT_DIR + File.separator + "partitions.lock";
+
+    /**
+     * Bytes written per partition since the index was last updated.
+     */
+    private static final Map<String, LongAdder> WRITTEN = new ConcurrentHashMap<>();
+    private static final AtomicBoolean RETENTION_RUNNING = new AtomicBoolean();
+
+    /**
+     * Returns the path for a new screenshot in the current thread's directory of the current day's
+     * partition and counts its size towards the partition.
+     *
+     * @param screenshotName File name of the screenshot
+     * @param size Size of the screenshot in bytes
+     * @return Path to write the screenshot to
+     */
+    static String allocate(String screenshotName, long size) {
+        String partition = countWritten(size);
+        File directory = ArtifactPathAllocator.workerDirectory(ScreenshotUtil.SCREENSHOT_DIR + File.separator + partition);
+        return new File(directory, screenshotName).getPath();
+    }
+
+    /**
+     * Counts bytes towards the current day's partition, for screenshots whose size is only known
+     * once they have been written.
+     *
+     * @param size Size of the screenshot in bytes
+     * @return Name of the current partition
+     */
+    static String countWritten(long size) {
+        String partition = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
+        WRITTEN.computeIfAbsent(partition, p -> new LongAdder()).add(size);
+        return partition;
+    }
+
+    /**
+     * Returns the total size quota for screenshots.
+     *
+     * @return Quota in bytes from {@code qaproject.screenshots.quotaMB}, or 0 for no quota
+     */
+    public static long quotaBytes() {
+        return Long.getLong("qaproject.screenshots.quotaMB", 0L) * 1024 * 1024;
+    }
+
+    /**
+     * Runs retention on a background thread. Does nothing if retention is already running.
+     * The thread is not a daemon, so the JVM finishes the deletes before it exits.
+     *
+     * @param daysToKeep Number of days to keep screenshots
+     * @param maxBytes Total size quota in bytes, or 0 for no quota
+     * @return true if retention was started
+     */
+    public static boolean cleanupAsync(int daysToKeep, long maxBytes) {
+        if (!RETENTION_RUNNING.compareAndSet(false, true)) {
+            return false;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                cleanup(daysToKeep, maxBytes);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Screenshot retention failed: " + e.getMessage());
+            } finally {
+                RETENTION_RUNNING.set(false);
+            }
+        }, "screenshot-retention");
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Deletes partitions older than the retention period, then the least recently written
+     * partitions while the total size exceeds the quota, and updates the index. Stored screenshots
+     * that no remaining partition refers to are deleted too.
+     *
+     * @param daysToKeep Number of days to keep screenshots
+     * @param maxBytes Total size quota in bytes, or 0 for no quota
+     * @throws IOException If the index cannot be read or written
+     */
+    public static synchronized void cleanup(int daysToKeep, long maxBytes) throws IOException {
+        File root = new File(ScreenshotUtil.SCREENSHOT_DIR);
+        if (!root.isDirectory()) {
+            return;
+        }
+
+        // The class lock keeps threads of this JVM apart, since a JVM cannot lock the same file
+        // twice, and the file lock keeps other JVMs out of the read-modify-write of the index
+        try (FileChannel channel = FileChannel.open(new File(LOCK_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Released when the channel is closed
+            channel.lock();
+            cleanupLocked(root, daysToKeep, maxBytes);
+        }
+    }
+
+    private static void cleanupLocked(File root, int daysToKeep, long maxBytes) throws IOException {
+        String[] names = root.list();
+        if (names == null) {
+            return;
+        }
+
+        Map<String, Partition> partitions = readIndex();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, LongAdder> written : WRITTEN.entrySet()) {
+            long bytes = written.getValue().sumThenReset();
+            if (bytes > 0) {
+                Partition partition = partitions.computeIfAbsent(written.getKey(), Partition::new);
+                partition.bytes += bytes;
+                partition.lastWrite = now;
+            }
+        }
+
+        LocalDate cutoff = LocalDate.now().minusDays(daysToKeep);
+        long cutoffTime = now - (daysToKeep * 24 * 60 * 60 * 1000L);
+        Set<String> onDisk = new HashSet<>();
+        for (String name : names) {
+            File file = new File(root, name);
+            if (parseDate(name) != null) {
+                onDisk.add(name);
+                if (!partitions.containsKey(name)) {
+                    // Partition from before the index existed, sized once
+                    Partition partition = new Partition(name);
+                    partition.bytes = directorySize(file.toPath());
+                    partition.lastWrite = file.lastModified();
+                    partitions.put(name, partition);
+                }
+            } else if (name.endsWith(".png") && file.isFile() && file.lastModified() < cutoffTime) {
+                // Flat screenshot written before partitioning
+                if (file.delete()) {
+                    System.out.println("Deleted old screenshot: " + name);
+                }
+            }
+        }
+        partitions.keySet().retainAll(onDisk);
+
+        Map<String, ScreenshotStore.DayUsage> stored = ScreenshotStore.usageByDay();
+        for (Map.Entry<String, ScreenshotStore.DayUsage> day : stored.entrySet()) {
+            if (parseDate(day.getKey()) != null) {
+                Partition partition = partitions.computeIfAbsent(day.getKey(), Partition::new);
+                partition.storedBytes = day.getValue().bytes;
+                partition.lastWrite = Math.max(partition.lastWrite, day.getValue().lastCapture);
+            }
+        }
+
+        Iterator<Partition> expired = partitions.values().iterator();
+        while (expired.hasNext()) {
+            Partition partition = expired.next();
+            if (parseDate(partition.name).isBefore(cutoff)) {
+                deletePartition(partition);
+                expired.remove();
+            }
+        }
+
+        if (maxBytes > 0) {
+            long total = 0;
+            for (Partition partition : partitions.values()) {
+                total += partition.bytes + partition.storedBytes;
+            }
+
+            List<Partition> leastRecentFirst = new ArrayList<>(partitions.values());
+            leastRecentFirst.sort(Comparator.comparingLong(p -> p.lastWrite));
+            String today = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
+            for (Partition partition : leastRecentFirst) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                if (!partition.name.equals(today)) {
+                    deletePartition(partition);
+                    partitions.remove(partition.name);
+                    total -= partition.bytes + partition.storedBytes;
+                }
+            }
+        }
+
+        if (!stored.isEmpty()) {
+            ScreenshotStore.retainDays(partitions.keySet());
+        }
+        // Days that only have stored screenshots are not written to the index
+        partitions.keySet().retainAll(onDisk);
+        writeIndex(partitions);
+    }
+
+    private static Map<String, Partition> readIndex() throws IOException {
+        Map<String, Partition> partitions = new LinkedHashMap<>();
+        File index = new File(INDEX_FILE);
+        if (!index.isFile()) {
+            return partitions;
+        }
+
+        for (String line : Files.readAllLines(index.toPath(), StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            if (fields.length < 3 || parseDate(fields[0]) == null) {
+                continue;
+            }
+            try {
+                Partition partition = new Partition(fields[0]);
+                partition.bytes = Long.parseLong(fields[1]);
+                partition.lastWrite = Long.parseLong(fields[2]);
+                partitions.put(partition.name, partition);
+            } catch (NumberFormatException e) {
+                // A damaged line is rebuilt from the directory on this run
+            }
+        }
+        return partitions;
+    }
+
+    private static void writeIndex(Map<String, Partition> partitions) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (Partition partition : partitions.values()) {
+            content.append(partition.name).append('\t').append(partition.bytes).append('\t')
+                    .append(partition.lastWrite).append('\n');
+        }
+
+        // Replace the index in one step so a crash never leaves it half written; the temporary
+        // file has a unique name, so JVMs sharing the directory never write into each other's
+        Path index = new File(INDEX_FILE).toPath();
+        Path temp = Files.createTempFile(index.getParent(), "partitions", ".tsv.tmp");
+        try {
+            Files.write(temp, content.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void deletePartition(Partition partition) throws IOException {
+        Path directory = new File(ScreenshotUtil.SCREENSHOT_DIR, partition.name).toPath();
+        if (!Files.isDirectory(directory)) {
+            // Only stored screenshots were taken that day
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        System.out.println("Deleted screenshot partition: " + partition.name);
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.map(Path::toFile).filter(File::isFile).mapToLong(File::length).sum();
+        }
+    }
+
+    private static LocalDate parseDate(String name) {
+        try {
+            return LocalDate.parse(name, DateTimeFormatter.ISO_LOCAL_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static final class Partition {
+        final String name;
+        long bytes;
+        long lastWrite;
+
+        /**
+         * Size of the stored images last captured on this day; not written to the index.
+         */
+        long storedBytes;
+
+        Partition(String name) {
+            this.name = name;
+        }
+    }
+}
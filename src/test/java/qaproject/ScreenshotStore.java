@@ -0,0 +1,491 @@
+package qaproject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * Content-addressed screenshot store.
+ * When enabled with {@code -Dqaproject.screenshots.dedup=true}, every screenshot is stored once
+ * under the SHA-256 hash of its bytes, so identical captures (the same login page for every data row,
+ * for example) cost one file. Each capture adds a line to {@code index.tsv} in the store directory
+ * that maps the screenshot name to its hash, size and capture time:
+ *
+ * <pre>
+ * loginTest_step_user1_result_20250101_120000_7.png	3f2a...c9	48213	1735732800000
+ * </pre>
+ *
+ * <p>Images are written under a temporary name and renamed, so a stored image is never seen half written.
+ * Index entries are removed with {@link #remove(String)} and {@link #removeCapturedBefore(long)}, which
+ * also delete the images no remaining entry refers to. Every read and update of the index holds
+ * {@code index.lock}, so JVMs sharing the store directory do not interleave their changes.</p>
+ */
+public class ScreenshotStore {
+
+    static final String STORE_DIR = ScreenshotUtil.SCREENSHOT_DIR + File.separator + "store";
+    static final String INDEX_FILE = STORE_DIR + File.separator + "index.tsv";
+    static final String LOCK_FILE = STORE_DIR + File.separator + "index.lock";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Write of every image stored in this run, by image path. Failed writes remove themselves.
+     */
+    private static final Map<String, StoredImage> STORED = new ConcurrentHashMap<>();
+
+    /**
+     * Guarded by the class lock held while the index is locked.
+     */
+    private static boolean indexDirectoryCreated;
+
+    /**
+     * Checks whether screenshots should be deduplicated.
+     *
+     * @return true if the content-addressed store is enabled through the system property
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("qaproject.screenshots.dedup");
+    }
+
+    /**
+     * Stores the image bytes unless an identical image is already stored, and records the
+     * screenshot name in the index.
+     *
+     * @param data Encoded image bytes
+     * @param screenshotName Name of the screenshot, recorded in the index
+     * @return Path to the stored image
+     * @throws IOException If the image or the index cannot be written
+     */
+    public static String store(byte[] data, String screenshotName) throws IOException {
+        String hash = sha256(data);
+        String imagePath = imagePath(hash, screenshotName);
+        boolean async = ScreenshotWriter.isEnabled();
+
+        StoredImage image = STORED.get(imagePath);
+        if (image == null) {
+            StoredImage write = new StoredImage(imagePath, writeTask(data, imagePath, async));
+            // Registered before other captures can see it, so they can wait for it through ScreenshotWriter
+            image = STORED.computeIfAbsent(imagePath, path -> {
+                ScreenshotWriter.register(write);
+                return write;
+            });
+            if (image == write) {
+                if (async) {
+                    ScreenshotWriter.start(write);
+                } else {
+                    write.run();
+                }
+            }
+        }
+        if (!async) {
+            // The first capture of the image may still be writing it on another thread
+            image.await();
+        }
+
+        appendToIndex(new IndexEntry(screenshotName, hash, data.length, System.currentTimeMillis()));
+        return imagePath;
+    }
+
+    /**
+     * Finds the stored image of a screenshot by the name it was recorded under.
+     *
+     * @param screenshotName Name of the screenshot
+     * @return Path to the stored image, or null if the name is not in the index
+     * @throws IOException If the index cannot be read
+     */
+    public static String resolve(String screenshotName) throws IOException {
+        if (!new File(INDEX_FILE).isFile()) {
+            return null;
+        }
+
+        String hash = null;
+        for (IndexEntry entry : withIndexLock(ScreenshotStore::readIndex)) {
+            if (entry.name.equals(screenshotName)) {
+                // Keep the last entry, names can repeat across runs
+                hash = entry.hash;
+            }
+        }
+        return hash == null ? null : imagePath(hash, screenshotName);
+    }
+
+    /**
+     * Removes every index entry of a screenshot, and deletes the stored images that no other
+     * entry refers to.
+     *
+     * @param screenshotName Name of the screenshot
+     * @return true if the name was in the index
+     * @throws IOException If the index cannot be read or written
+     */
+    public static boolean remove(String screenshotName) throws IOException {
+        return removeEntries(entry -> entry.name.equals(screenshotName)) > 0;
+    }
+
+    /**
+     * Removes the index entries of screenshots captured before a point in time, and deletes the
+     * stored images that no remaining entry refers to. Entries written before capture times were
+     * recorded count as captured at the epoch.
+     *
+     * @param time Capture time in milliseconds since the epoch
+     * @return Number of index entries removed
+     * @throws IOException If the index cannot be read or written
+     */
+    public static int removeCapturedBefore(long time) throws IOException {
+        return removeEntries(entry -> entry.captured < time);
+    }
+
+    /**
+     * Returns the size of the stored images by the day they were last captured on, as named by
+     * {@link ScreenshotArchive} partitions. An image captured on several days counts towards the
+     * last of them only, since it is deleted when that day's entries go.
+     *
+     * @return Image bytes and last capture time by day
+     * @throws IOException If the index cannot be read
+     */
+    static Map<String, DayUsage> usageByDay() throws IOException {
+        Map<String, DayUsage> days = new HashMap<>();
+        if (!new File(INDEX_FILE).isFile()) {
+            return days;
+        }
+
+        Map<String, IndexEntry> lastCaptures = new HashMap<>();
+        for (IndexEntry entry : withIndexLock(ScreenshotStore::readIndex)) {
+            lastCaptures.merge(imagePath(entry.hash, entry.name), entry,
+                    (a, b) -> a.captured >= b.captured ? a : b);
+        }
+        for (IndexEntry entry : lastCaptures.values()) {
+            DayUsage usage = days.computeIfAbsent(day(entry.captured), d -> new DayUsage());
+            usage.bytes += entry.size;
+            usage.lastCapture = Math.max(usage.lastCapture, entry.captured);
+        }
+        return days;
+    }
+
+    /**
+     * Removes the index entries of every day not in the given set, and deletes the images no
+     * remaining entry refers to. Entries captured today are always kept.
+     *
+     * @param days Days to keep, formatted like {@link ScreenshotArchive} partition names
+     * @return Number of index entries removed
+     * @throws IOException If the index cannot be read or written
+     */
+    static int retainDays(Set<String> days) throws IOException {
+        long startOfToday = startOfToday();
+        return removeEntries(entry -> entry.captured < startOfToday && !days.contains(day(entry.captured)));
+    }
+
+    /**
+     * Removes matching index entries and deletes the images only they referred to. Image files that
+     * no entry refers to at all are deleted too, unless they were written today: another JVM stores
+     * an image before it adds its index entry.
+     *
+     * @return Number of index entries removed
+     */
+    static int removeEntries(Predicate<IndexEntry> removed) throws IOException {
+        if (!new File(INDEX_FILE).isFile()) {
+            return 0;
+        }
+
+        return withIndexLock(() -> {
+            List<IndexEntry> entries = readIndex();
+            List<IndexEntry> remaining = new ArrayList<>(entries.size());
+            Set<String> referenced = new HashSet<>();
+            Set<String> unreferenced = new HashSet<>();
+            for (IndexEntry entry : entries) {
+                String imagePath = imagePath(entry.hash, entry.name);
+                if (removed.test(entry)) {
+                    unreferenced.add(imagePath);
+                } else {
+                    remaining.add(entry);
+                    referenced.add(imagePath);
+                }
+            }
+            if (remaining.size() == entries.size()) {
+                return 0;
+            }
+
+            writeIndex(remaining);
+            unreferenced.removeAll(referenced);
+            deleteImages(unreferenced, referenced);
+            return entries.size() - remaining.size();
+        });
+    }
+
+    /**
+     * Stored images keep the extension of the screenshot name, so JPEG and WebP captures stay readable.
+     */
+    private static String imagePath(String hash, String screenshotName) {
+        int dot = screenshotName.lastIndexOf('.');
+        String extension = dot >= 0 ? screenshotName.substring(dot) : ".png";
+        return STORE_DIR + File.separator + hash.substring(0, 2) + File.separator + hash + extension;
+    }
+
+    private static Callable<Boolean> writeTask(byte[] data, String imagePath, boolean async) {
+        if (!async) {
+            return () -> writeImage(data, imagePath);
+        }
+        return () -> {
+            try {
+                return writeImage(data, imagePath);
+            } catch (IOException e) {
+                System.err.println("Failed to store screenshot " + imagePath + ": " + e.getMessage());
+                return Boolean.FALSE;
+            }
+        };
+    }
+
+    /**
+     * Writes the image under a temporary name in its directory and renames it into place.
+     */
+    private static Boolean writeImage(byte[] data, String imagePath) throws IOException {
+        File image = new File(imagePath);
+        if (image.isFile()) {
+            // Stored by an earlier run
+            return Boolean.TRUE;
+        }
+
+        File directory = image.getParentFile();
+        directory.mkdirs();
+        Path temp = Files.createTempFile(directory.toPath(), image.getName(), ".tmp");
+        try {
+            ScreenshotWriter.writeFile(data, temp.toString());
+            Files.move(temp, image.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return Boolean.TRUE;
+    }
+
+    private static void appendToIndex(IndexEntry entry) throws IOException {
+        byte[] line = entry.toLine().getBytes(StandardCharsets.UTF_8);
+        withIndexLock(() -> Files.write(new File(INDEX_FILE).toPath(), line,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    /**
+     * Runs an index operation while holding the index lock. The class lock keeps threads of this JVM
+     * apart, since a JVM cannot lock the same file twice, and the file lock keeps other JVMs out.
+     */
+    static synchronized <T> T withIndexLock(IndexOperation<T> operation) throws IOException {
+        if (!indexDirectoryCreated) {
+            new File(STORE_DIR).mkdirs();
+            indexDirectoryCreated = true;
+        }
+        try (FileChannel channel = FileChannel.open(new File(LOCK_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Released when the channel is closed
+            channel.lock();
+            return operation.run();
+        }
+    }
+
+    /**
+     * Reads the index. Must be called while holding the index lock.
+     */
+    static List<IndexEntry> readIndex() throws IOException {
+        List<IndexEntry> entries = new ArrayList<>();
+        File index = new File(INDEX_FILE);
+        if (!index.isFile()) {
+            return entries;
+        }
+
+        for (String line : Files.readAllLines(index.toPath(), StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            if (fields.length < 3) {
+                continue;
+            }
+            try {
+                long captured = fields.length >= 4 ? Long.parseLong(fields[3]) : 0L;
+                entries.add(new IndexEntry(fields[0], fields[1], Long.parseLong(fields[2]), captured));
+            } catch (NumberFormatException e) {
+                // A damaged line refers to nothing that can be resolved
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Replaces the index in one step. Must be called while holding the index lock.
+     */
+    private static void writeIndex(List<IndexEntry> entries) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (IndexEntry entry : entries) {
+            content.append(entry.toLine());
+        }
+
+        Path index = new File(INDEX_FILE).toPath();
+        Path temp = Files.createTempFile(index.getParent(), "index", ".tsv.tmp");
+        try {
+            Files.write(temp, content.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Deletes images whose last entry was removed, and images written before today that no entry
+     * refers to, such as those left by a JVM that stopped before it updated the index.
+     */
+    private static void deleteImages(Set<String> unreferenced, Set<String> referenced) {
+        for (String imagePath : unreferenced) {
+            deleteImage(new File(imagePath));
+        }
+
+        long startOfToday = startOfToday();
+        File[] directories = new File(STORE_DIR).listFiles(File::isDirectory);
+        if (directories == null) {
+            return;
+        }
+        for (File directory : directories) {
+            File[] images = directory.listFiles(File::isFile);
+            if (images == null) {
+                continue;
+            }
+            for (File image : images) {
+                if (!referenced.contains(image.getPath()) && image.lastModified() < startOfToday) {
+                    deleteImage(image);
+                }
+            }
+            // Only succeeds once the directory is empty
+            directory.delete();
+        }
+    }
+
+    private static long startOfToday() {
+        return LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String day(long time) {
+        return Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).toLocalDate()
+                .format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    private static void deleteImage(File image) {
+        // A later capture of the same image in this JVM must write it again
+        STORED.remove(image.getPath());
+        if (image.delete()) {
+            System.out.println("Deleted stored screenshot: " + image.getName());
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        byte[] hash = digest.digest(data);
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Operation on the index, run while holding the index lock.
+     */
+    interface IndexOperation<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * One line of the index: a screenshot name, the hash and size of its image, and when it was captured.
+     */
+    static final class IndexEntry {
+        final String name;
+        final String hash;
+        final long size;
+        final long captured;
+
+        IndexEntry(String name, String hash, long size, long captured) {
+            this.name = name;
+            this.hash = hash;
+            this.size = size;
+            this.captured = captured;
+        }
+
+        String toLine() {
+            return name + "\t" + hash + "\t" + size + "\t" + captured + "\n";
+        }
+    }
+
+    /**
+     * Size of the images last captured on one day.
+     */
+    static final class DayUsage {
+        long bytes;
+        long lastCapture;
+    }
+
+    /**
+     * Write of one stored image. A failed write removes itself from {@link #STORED}, so the next
+     * capture of the image writes it again.
+     */
+    private static final class StoredImage extends ScreenshotWriter.PendingWrite {
+
+        StoredImage(String imagePath, Callable<Boolean> write) {
+            super(imagePath, write);
+        }
+
+        @Override
+        protected void done() {
+            super.done();
+            if (!isWritten()) {
+                STORED.remove(screenshotPath, this);
+            }
+        }
+
+        private boolean isWritten() {
+            try {
+                return Boolean.TRUE.equals(get());
+            } catch (InterruptedException | ExecutionException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Waits for the write and reports its failure.
+         */
+        void await() throws IOException {
+            try {
+                if (!Boolean.TRUE.equals(get())) {
+                    throw new IOException("Failed to store screenshot " + screenshotPath);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while storing screenshot " + screenshotPath, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Failed to store screenshot " + screenshotPath, e.getCause());
+            }
+        }
+    }
+}
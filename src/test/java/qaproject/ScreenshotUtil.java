@@ -2,10 +2,7 @@ package qaproject;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 
-import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
@@ -16,38 +13,45 @@ import org.openqa.selenium.WebElement;
  */
 public class ScreenshotUtil {
     
-    private static final String SCREENSHOT_DIR = "test-output/screenshots";
+    static final String SCREENSHOT_DIR = "test-output/screenshots";
     
     /**
      * Takes a screenshot of the current browser window
+     * Uses the run's default capture options, see {@link CaptureOptions#fromProperties()}
      * 
      * @param driver WebDriver instance
      * @param testName Name of the test for screenshot naming
      * @param reason Optional reason for taking screenshot (e.g., "failure", "verification")
-     * @return Path to the saved screenshot file
+     * @return Path to the saved screenshot file; in asynchronous mode the file may still be
+     *         queued, see {@link ScreenshotWriter#awaitWrite(String)}
      */
     public static String takeScreenshot(WebDriver driver, String testName, String reason) {
+        return takeScreenshot(driver, testName, reason, CaptureOptions.fromProperties());
+    }
+    
+    /**
+     * Takes a screenshot of the current browser window with the given capture options
+     * 
+     * @param driver WebDriver instance
+     * @param testName Name of the test for screenshot naming
+     * @param reason Optional reason for taking screenshot (e.g., "failure", "verification")
+     * @param options Format, quality, scale and area of the screenshot
+     * @return Path to the saved screenshot file; in asynchronous mode the file may still be
+     *         queued, see {@link ScreenshotWriter#awaitWrite(String)}
+     */
+    public static String takeScreenshot(WebDriver driver, String testName, String reason, CaptureOptions options) {
         if (driver == null) {
             System.err.println("Cannot take screenshot: WebDriver is null");
             return null;
         }
         
-        // Create screenshots directory if it doesn't exist
-        File screenshotDir = new File(SCREENSHOT_DIR);
-        if (!screenshotDir.exists()) {
-            screenshotDir.mkdirs();
-        }
-        
-        // Generate unique filename with timestamp
-        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String screenshotName = testName + "_" + (reason != null ? reason + "_" : "") + timestamp + ".png";
-        String screenshotPath = SCREENSHOT_DIR + File.separator + screenshotName;
+        options = supportedOptions(driver, options);
+        // Generate unique filename with timestamp and sequence number
+        String screenshotName = ArtifactPathAllocator.fileName(testName, reason, options.getExtension());
         
         try {
-            TakesScreenshot ts = (TakesScreenshot) driver;
-            File source = ts.getScreenshotAs(OutputType.FILE);
-            File destination = new File(screenshotPath);
-            FileUtils.copyFile(source, destination);
+            byte[] data = capture(driver, options);
+            String screenshotPath = saveScreenshot(data, screenshotName);
             System.out.println("Screenshot saved: " + screenshotPath);
             return screenshotPath;
         } catch (IOException e) {
@@ -67,26 +71,35 @@ public class ScreenshotUtil {
      * @return Path to the saved screenshot file
      */
     public static String takeElementScreenshot(WebDriver driver, WebElement element, String testName, String elementName) {
+        return takeElementScreenshot(driver, element, testName, elementName, CaptureOptions.fromProperties());
+    }
+    
+    /**
+     * Takes a screenshot of a specific WebElement with the given capture options
+     * Through DevTools the element is captured as a clip of the page, so it may lie outside the viewport
+     * 
+     * @param driver WebDriver instance
+     * @param element WebElement to capture
+     * @param testName Name of the test for screenshot naming
+     * @param elementName Name of the element being captured
+     * @param options Format, quality and scale of the screenshot; the area is taken from the element
+     * @return Path to the saved screenshot file
+     */
+    public static String takeElementScreenshot(WebDriver driver, WebElement element, String testName, String elementName,
+            CaptureOptions options) {
         if (driver == null || element == null) {
             System.err.println("Cannot take element screenshot: WebDriver or WebElement is null");
             return null;
         }
         
-        // Create screenshots directory if it doesn't exist
-        File screenshotDir = new File(SCREENSHOT_DIR);
-        if (!screenshotDir.exists()) {
-            screenshotDir.mkdirs();
-        }
-        
-        // Generate unique filename with timestamp
-        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String screenshotName = testName + "_" + elementName + "_" + timestamp + ".png";
-        String screenshotPath = SCREENSHOT_DIR + File.separator + screenshotName;
+        options = supportedOptions(driver, options);
+        // Generate unique filename with timestamp and sequence number
+        String screenshotName = ArtifactPathAllocator.fileName(testName, elementName, options.getExtension());
         
         try {
-            File source = element.getScreenshotAs(OutputType.FILE);
-            File destination = new File(screenshotPath);
-            FileUtils.copyFile(source, destination);
+            byte[] data = options.isPlainPng() ? element.getScreenshotAs(OutputType.BYTES)
+                    : DevToolsCapture.capture(driver, options.withClip(element.getRect()));
+            String screenshotPath = saveScreenshot(data, screenshotName);
             System.out.println("Element screenshot saved: " + screenshotPath);
             return screenshotPath;
         } catch (IOException e) {
@@ -96,40 +109,132 @@ public class ScreenshotUtil {
         }
     }
     
+    /**
+     * Takes a screenshot of the whole page in tiles, each saved as its own PNG file next to a manifest
+     * Memory use stays bounded however long the page is; see {@link TiledScreenshot}
+     * The tiles are always written synchronously and are not deduplicated
+     * 
+     * @param driver WebDriver instance
+     * @param testName Name of the test for screenshot naming
+     * @param reason Optional reason for taking screenshot (e.g., "failure", "verification")
+     * @return Path to the directory with the tiles and their manifest
+     */
+    public static String takeFullPageScreenshot(WebDriver driver, String testName, String reason) {
+        if (driver == null) {
+            System.err.println("Cannot take screenshot: WebDriver is null");
+            return null;
+        }
+        
+        String screenshotPath = ScreenshotArchive.allocate(ArtifactPathAllocator.fileName(testName, reason, "tiles"), 0);
+        try {
+            ScreenshotArchive.countWritten(TiledScreenshot.capture(driver, new File(screenshotPath)));
+            System.out.println("Full-page screenshot saved: " + screenshotPath);
+            return screenshotPath;
+        } catch (IOException e) {
+            System.err.println("Failed to capture full-page screenshot: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    /**
+     * Captures the browser window, through DevTools unless a plain PNG is requested
+     * 
+     * @param driver WebDriver instance
+     * @param options Capture options supported by the driver
+     * @return Encoded image bytes
+     */
+    private static byte[] capture(WebDriver driver, CaptureOptions options) {
+        if (options.isPlainPng()) {
+            // Bytes avoid the temp file Selenium writes for OutputType.FILE
+            return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+        }
+        return DevToolsCapture.capture(driver, options);
+    }
+    
+    /**
+     * Falls back to a plain PNG when the options need DevTools and the driver is not Chromium-based
+     * 
+     * @param driver WebDriver instance
+     * @param options Requested capture options
+     * @return Options the driver can capture
+     */
+    private static CaptureOptions supportedOptions(WebDriver driver, CaptureOptions options) {
+        if (options.isPlainPng() || DevToolsCapture.isSupported(driver)) {
+            return options;
+        }
+        System.err.println("Capture options need a Chromium-based driver, taking a plain PNG instead");
+        return CaptureOptions.png();
+    }
+    
+    /**
+     * Saves captured image bytes under the given file name
+     * 
+     * @param data Encoded image bytes
+     * @param screenshotName Unique file name from {@link ArtifactPathAllocator#fileName}
+     * @return Path to read the screenshot from; in asynchronous mode the file may still be queued
+     * @throws IOException If the file cannot be written
+     */
+    static String saveScreenshot(byte[] data, String screenshotName) throws IOException {
+        if (ScreenshotStore.isEnabled()) {
+            return ScreenshotStore.store(data, screenshotName);
+        }
+        
+        String screenshotPath = ScreenshotArchive.allocate(screenshotName, data.length);
+        if (ScreenshotWriter.isEnabled()) {
+            // Captured on the test thread, written in the background
+            ScreenshotWriter.write(data, screenshotPath);
+        } else {
+            ScreenshotWriter.writeFile(data, screenshotPath);
+        }
+        return screenshotPath;
+    }
+    
     /**
      * Takes a screenshot at a specific step in the test
      * 
      * @param driver WebDriver instance
      * @param testName Name of the test
      * @param stepName Name of the test step
-     * @return Path to the saved screenshot file
+     * @return Path to the saved screenshot file, or null in recorder mode, where the capture is
+     *         kept in memory and only written if the test fails (see {@link StepRecorder})
      */
     public static String takeStepScreenshot(WebDriver driver, String testName, String stepName) {
+        if (StepRecorder.isEnabled()) {
+            if (driver == null) {
+                System.err.println("Cannot take screenshot: WebDriver is null");
+                return null;
+            }
+            
+            CaptureOptions options = supportedOptions(driver, CaptureOptions.fromProperties());
+            byte[] data = capture(driver, options);
+            StepRecorder.record(data, ArtifactPathAllocator.fileName(testName, "step_" + stepName, options.getExtension()));
+            return null;
+        }
         return takeScreenshot(driver, testName, "step_" + stepName);
     }
     
     /**
      * Cleans up old screenshots based on retention policy
+     * Deletes whole date partitions older than the retention period and, if a quota is set
+     * with {@code qaproject.screenshots.quotaMB}, the least recently written partitions beyond it
      * 
      * @param daysToKeep Number of days to keep screenshots
      */
     public static void cleanupOldScreenshots(int daysToKeep) {
-        File screenshotDir = new File(SCREENSHOT_DIR);
-        if (!screenshotDir.exists() || !screenshotDir.isDirectory()) {
-            return;
-        }
-        
-        long cutoffTime = System.currentTimeMillis() - (daysToKeep * 24 * 60 * 60 * 1000L);
-        File[] files = screenshotDir.listFiles();
-        
-        if (files != null) {
-            for (File file : files) {
-                if (file.isFile() && file.lastModified() < cutoffTime) {
-                    if (file.delete()) {
-                        System.out.println("Deleted old screenshot: " + file.getName());
-                    }
-                }
-            }
+        try {
+            ScreenshotArchive.cleanup(daysToKeep, ScreenshotArchive.quotaBytes());
+        } catch (IOException e) {
+            System.err.println("Failed to clean up screenshots: " + e.getMessage());
         }
     }
+    
+    /**
+     * Starts screenshot cleanup on a background thread so that it does not delay the end of the suite
+     * 
+     * @param daysToKeep Number of days to keep screenshots
+     */
+    public static void cleanupOldScreenshotsAsync(int daysToKeep) {
+        ScreenshotArchive.cleanupAsync(daysToKeep, ScreenshotArchive.quotaBytes());
+    }
 }
\ No newline at end of file
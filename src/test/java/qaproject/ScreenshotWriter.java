@@ -0,0 +1,200 @@
+package qaproject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background writer for screenshot files.
+ * When asynchronous mode is enabled with {@code -Dqaproject.screenshots.async=true}, the test
+ * thread only captures the image bytes and hands them to a small pool of writer threads.
+ * The queue is bounded: once it is full, the test thread writes the file itself, so a slow disk
+ * slows the tests down instead of filling the heap with pending images.
+ *
+ * <p>Pool size and queue capacity can be tuned with {@code qaproject.screenshots.writerThreads}
+ * and {@code qaproject.screenshots.queueSize}.</p>
+ */
+public class ScreenshotWriter {
+
+    private static final int WRITER_THREADS = Integer.getInteger("qaproject.screenshots.writerThreads", 2);
+    private static final int QUEUE_SIZE = Integer.getInteger("qaproject.screenshots.queueSize", 32);
+    private static final boolean REUSE_DIRECT_BUFFERS = Boolean.getBoolean("qaproject.screenshots.directBuffer");
+
+    /**
+     * Per-thread direct buffer, grown to the largest screenshot written on that thread.
+     */
+    private static final ThreadLocal<ByteBuffer> DIRECT_BUFFER = new ThreadLocal<>();
+
+    private static final Map<String, PendingWrite> PENDING = new ConcurrentHashMap<>();
+    private static ThreadPoolExecutor executor;
+
+    /**
+     * Checks whether screenshots should be written in the background.
+     *
+     * @return true if asynchronous mode is enabled through the system property
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("qaproject.screenshots.async");
+    }
+
+    /**
+     * Queues the image bytes to be written to the given path.
+     * Blocks only while the queue is full, by writing the file on the calling thread.
+     *
+     * @param data Encoded image bytes
+     * @param screenshotPath Path of the file to write
+     */
+    public static void write(byte[] data, String screenshotPath) {
+        PendingWrite task = new PendingWrite(screenshotPath, () -> writeQueued(data, screenshotPath));
+        register(task);
+        start(task);
+    }
+
+    /**
+     * Registers a write under its path, so {@link #awaitWrite} and {@link #flush} wait for it.
+     * The task must then be started, or run on the calling thread.
+     *
+     * @param task Write task
+     */
+    static void register(PendingWrite task) {
+        PENDING.put(task.screenshotPath, task);
+    }
+
+    /**
+     * Queues a registered write.
+     *
+     * @param task Write task
+     */
+    static void start(PendingWrite task) {
+        executor().execute(task);
+    }
+
+    /**
+     * Waits until a queued screenshot has been written. Returns at once for files that were
+     * written synchronously or have already been written.
+     *
+     * @param screenshotPath Path returned by {@link ScreenshotUtil}
+     * @return true if the file exists once pending writes have finished
+     */
+    public static boolean awaitWrite(String screenshotPath) {
+        Future<?> task = PENDING.get(screenshotPath);
+        if (task != null) {
+            await(task);
+        }
+        return new File(screenshotPath).isFile();
+    }
+
+    /**
+     * Waits until every queued screenshot has been written.
+     * Called when the suite finishes, so no screenshot is lost when the JVM exits.
+     */
+    public static void flush() {
+        while (!PENDING.isEmpty()) {
+            for (Future<?> task : PENDING.values()) {
+                if (!await(task)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean await(Future<?> task) {
+        try {
+            task.get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            // Queued writes report their own failures, so this is unexpected
+            System.err.println("Screenshot writer failed: " + e.getCause());
+            return true;
+        }
+    }
+
+    /**
+     * Writes the image bytes to the given path with a single channel write, replacing any existing file.
+     * With {@code -Dqaproject.screenshots.directBuffer=true} the bytes are copied into a direct buffer
+     * that is reused by the calling thread, instead of a temporary one allocated by NIO on each write.
+     *
+     * @param data Encoded image bytes
+     * @param screenshotPath Path of the file to write
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeFile(byte[] data, String screenshotPath) throws IOException {
+        ByteBuffer buffer = REUSE_DIRECT_BUFFERS ? directBuffer(data) : ByteBuffer.wrap(data);
+        try (FileChannel channel = FileChannel.open(new File(screenshotPath).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static ByteBuffer directBuffer(byte[] data) {
+        ByteBuffer buffer = DIRECT_BUFFER.get();
+        if (buffer == null || buffer.capacity() < data.length) {
+            // Round up so that slightly larger captures do not reallocate every time
+            buffer = ByteBuffer.allocateDirect(Math.max(data.length + (data.length >> 2), 1 << 20));
+            DIRECT_BUFFER.set(buffer);
+        }
+        buffer.clear();
+        buffer.put(data);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Boolean writeQueued(byte[] data, String screenshotPath) {
+        try {
+            writeFile(data, screenshotPath);
+            return Boolean.TRUE;
+        } catch (IOException e) {
+            System.err.println("Failed to write screenshot " + screenshotPath + ": " + e.getMessage());
+            return Boolean.FALSE;
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = new ThreadPoolExecutor(WRITER_THREADS, WRITER_THREADS, 30, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+                        Thread thread = new Thread(runnable, "screenshot-writer-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Write task that removes itself from the pending map once the file is written.
+     * The task drops its image bytes as soon as it has run.
+     */
+    static class PendingWrite extends FutureTask<Boolean> {
+        final String screenshotPath;
+
+        PendingWrite(String screenshotPath, Callable<Boolean> write) {
+            super(write);
+            this.screenshotPath = screenshotPath;
+        }
+
+        @Override
+        protected void done() {
+            PENDING.remove(screenshotPath, this);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package qaproject;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the latest step screenshots of each test thread in memory instead of writing them to disk.
+ * When enabled with {@code -Dqaproject.screenshots.recorder=true}, {@link ScreenshotUtil#takeStepScreenshot}
+ * adds each capture to a ring buffer of the last {@code qaproject.screenshots.recorderSize} captures
+ * (default 10). {@link CustomTestListener} writes the buffer out when a test or configuration method
+ * fails and discards it when the test passes or is skipped, so green runs write no step screenshots at all.
+ *
+ * <p>Captures are kept as the encoded bytes returned by the driver, which are already compressed, and
+ * each thread's buffer is also capped at {@code qaproject.screenshots.recorderMB} megabytes (default 16):
+ * the oldest captures are dropped until the newest one fits, so full-HD captures of a long page cannot
+ * add up to hundreds of megabytes per thread. The newest capture is always kept.</p>
+ *
+ * <p>A buffer is released from its thread once it is flushed or discarded. Buffers that no test result
+ * reached, such as those filled by {@code @AfterMethod} steps, are dropped by {@link #discardAll()}.</p>
+ */
+public class StepRecorder {
+
+    private static final int CAPACITY = Math.max(1, Integer.getInteger("qaproject.screenshots.recorderSize", 10));
+    private static final long MAX_BYTES = Math.max(1L, Long.getLong("qaproject.screenshots.recorderMB", 16L)) * 1024 * 1024;
+
+    /**
+     * Buffers of the threads that hold captures, so that those of pool threads can be dropped at the end.
+     */
+    private static final Set<Buffer> BUFFERS = ConcurrentHashMap.newKeySet();
+
+    private static final ThreadLocal<Buffer> CAPTURES = ThreadLocal.withInitial(() -> {
+        Buffer buffer = new Buffer();
+        BUFFERS.add(buffer);
+        return buffer;
+    });
+
+    /**
+     * Checks whether step screenshots should be buffered in memory.
+     *
+     * @return true if the recorder is enabled through the system property
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("qaproject.screenshots.recorder");
+    }
+
+    /**
+     * Adds a capture to the current thread's buffer, dropping the oldest ones while the buffer holds
+     * too many captures or bytes.
+     *
+     * @param data Encoded image bytes
+     * @param screenshotName File name to use if the capture is written
+     */
+    public static void record(byte[] data, String screenshotName) {
+        CAPTURES.get().add(new Capture(screenshotName, data));
+    }
+
+    /**
+     * Writes the current thread's buffered captures to disk, oldest first, and releases the buffer.
+     *
+     * @return Paths of the written screenshots
+     */
+    public static List<String> flush() {
+        Buffer buffer = CAPTURES.get();
+        try {
+            List<Capture> captures = buffer.drain();
+            List<String> paths = new ArrayList<>(captures.size());
+            for (Capture capture : captures) {
+                try {
+                    paths.add(ScreenshotUtil.saveScreenshot(capture.data, capture.screenshotName));
+                } catch (IOException e) {
+                    System.err.println("Failed to write step screenshot " + capture.screenshotName + ": " + e.getMessage());
+                }
+            }
+            return paths;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Drops the current thread's buffered captures without writing them.
+     */
+    public static void discard() {
+        Buffer buffer = CAPTURES.get();
+        buffer.drain();
+        release(buffer);
+    }
+
+    /**
+     * Drops the buffered captures of every thread without writing them.
+     */
+    public static void discardAll() {
+        for (Buffer buffer : BUFFERS) {
+            buffer.drain();
+        }
+    }
+
+    private static void release(Buffer buffer) {
+        BUFFERS.remove(buffer);
+        CAPTURES.remove();
+    }
+
+    /**
+     * Captures of one thread, oldest first. Synchronized because {@link #discardAll()} runs on another thread.
+     */
+    private static final class Buffer {
+        private final Deque<Capture> captures = new ArrayDeque<>();
+        private long bytes;
+
+        synchronized void add(Capture capture) {
+            while (!captures.isEmpty()
+                    && (captures.size() == CAPACITY || bytes + capture.data.length > MAX_BYTES)) {
+                bytes -= captures.removeFirst().data.length;
+            }
+            captures.addLast(capture);
+            bytes += capture.data.length;
+        }
+
+        synchronized List<Capture> drain() {
+            List<Capture> drained = new ArrayList<>(captures);
+            captures.clear();
+            bytes = 0;
+            return drained;
+        }
+    }
+
+    private static final class Capture {
+        final String screenshotName;
+        final byte[] data;
+
+        Capture(String screenshotName, byte[] data) {
+            this.screenshotName = screenshotName;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package qaproject;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Full-page screenshot captured in horizontal tiles, each saved as its own PNG file.
+ * With a Chromium-based driver every tile is a DevTools clip of the page; with other drivers the
+ * window is scrolled one viewport at a time and each viewport screenshot becomes a tile. Only one
+ * tile is decoded at a time and each is written to disk before the next is captured, so memory use
+ * depends on the tile height and page width, not on the length of the page.
+ *
+ * <p>The tiles go into one directory together with {@code manifest.tsv}, which is written last: its
+ * first line holds the page width and height in pixels, and every further line a tile's file name,
+ * first row and height. A capture that fails partway through leaves no manifest, so it can never be
+ * compared as if it were complete.</p>
+ *
+ * <p>The tile height in CSS pixels is set with {@code qaproject.screenshots.tileHeight} (default 2000)
+ * and only applies to DevTools capture. When scrolling, fixed headers and footers appear in every tile.</p>
+ */
+public class TiledScreenshot {
+
+    static final String MANIFEST_FILE = "manifest.tsv";
+
+    private static final int TILE_HEIGHT = Integer.getInteger("qaproject.screenshots.tileHeight", 2000);
+
+    /**
+     * Captures the whole page into a directory of tiles.
+     *
+     * @param driver WebDriver instance
+     * @param directory Directory to write the tiles and manifest to; created if missing
+     * @return Total size of the written files in bytes
+     * @throws IOException If a tile cannot be decoded or written, or fewer rows than the page has were captured
+     */
+    public static long capture(WebDriver driver, File directory) throws IOException {
+        Object height = ((JavascriptExecutor) driver).executeScript("return document.documentElement.scrollHeight;");
+        int pageHeight = height == null ? 0 : intValue(height);
+        if (pageHeight <= 0) {
+            throw new IOException("Page has no content to capture");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create tile directory " + directory);
+        }
+
+        Manifest manifest = DevToolsCapture.isSupported(driver)
+                ? captureClips(driver, directory, pageHeight)
+                : captureByScrolling(driver, directory, pageHeight);
+        return manifest.write(directory);
+    }
+
+    /**
+     * Reads the manifest of a tile directory.
+     *
+     * @param directory Directory written by {@link #capture}
+     * @return Page size and tiles
+     * @throws IOException If the manifest is missing or does not describe a complete page
+     */
+    static Manifest readManifest(File directory) throws IOException {
+        File file = new File(directory, MANIFEST_FILE);
+        if (!file.isFile()) {
+            throw new IOException("No tile manifest in " + directory + "; the capture did not finish");
+        }
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        try {
+            String[] size = lines.get(0).split("\t");
+            Manifest manifest = new Manifest(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split("\t");
+                manifest.tiles.add(new Tile(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2])));
+            }
+            manifest.checkComplete(directory);
+            return manifest;
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            throw new IOException("Damaged tile manifest " + file, e);
+        }
+    }
+
+    /**
+     * Captures the page as DevTools clips of {@code TILE_HEIGHT} CSS pixels.
+     */
+    private static Manifest captureClips(WebDriver driver, File directory, int pageHeight) throws IOException {
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        int pageWidth = intValue(js.executeScript("return document.documentElement.scrollWidth;"));
+        CaptureOptions options = CaptureOptions.png();
+
+        Manifest manifest = null;
+        int rows = 0;
+        for (int y = 0; y < pageHeight; y += TILE_HEIGHT) {
+            int clipHeight = Math.min(TILE_HEIGHT, pageHeight - y);
+            CaptureOptions clip = options.withClip(rectangle(0, y, pageWidth, clipHeight));
+            BufferedImage tile = decode(DevToolsCapture.capture(driver, clip));
+
+            if (manifest == null) {
+                manifest = new Manifest(tile.getWidth(), 0);
+            }
+            rows += manifest.writeTile(directory, tile, 0, tile.getHeight(), rows);
+        }
+
+        // Every clip has been captured, so the tiles make up the page whatever the device pixel ratio
+        manifest.height = rows;
+        return manifest;
+    }
+
+    /**
+     * Captures the page by scrolling one viewport at a time. The last viewport usually overlaps the
+     * previous one, so its rows that were already written are skipped.
+     */
+    private static Manifest captureByScrolling(WebDriver driver, File directory, int pageHeight) throws IOException {
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        int viewportHeight = intValue(js.executeScript("return window.innerHeight;"));
+        Object originalScroll = js.executeScript("return window.pageYOffset;");
+
+        Manifest manifest = null;
+        int rows = 0;
+        try {
+            for (int y = 0; y < pageHeight; y += viewportHeight) {
+                js.executeScript("window.scrollTo(0, arguments[0]);", y);
+                int scrolledTo = intValue(js.executeScript("return window.pageYOffset;"));
+                BufferedImage tile = decode(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES));
+
+                double ratio = (double) tile.getHeight() / viewportHeight;
+                if (manifest == null) {
+                    manifest = new Manifest(tile.getWidth(), (int) Math.round(pageHeight * ratio));
+                }
+                int skipRows = Math.max(0, Math.min(tile.getHeight(), (int) Math.round((y - scrolledTo) * ratio)));
+                int tileRows = Math.min(tile.getHeight() - skipRows, manifest.height - rows);
+                rows += manifest.writeTile(directory, tile, skipRows, tileRows, rows);
+            }
+        } finally {
+            js.executeScript("window.scrollTo(0, arguments[0]);", originalScroll);
+        }
+        return manifest;
+    }
+
+    private static BufferedImage decode(byte[] data) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        if (image == null) {
+            throw new IOException("Screenshot is not a readable image");
+        }
+        return image;
+    }
+
+    private static Rectangle rectangle(int x, int y, int width, int height) {
+        // Selenium's constructor takes the height before the width
+        return new Rectangle(x, y, height, width);
+    }
+
+    private static int intValue(Object value) {
+        return ((Number) value).intValue();
+    }
+
+    /**
+     * Page size and the tiles that cover it, top to bottom.
+     */
+    static final class Manifest {
+        final int width;
+        int height;
+        final List<Tile> tiles = new ArrayList<>();
+        private long bytes;
+
+        Manifest(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Saves rows of a captured tile as the next tile file.
+         *
+         * @return Number of rows written
+         */
+        private int writeTile(File directory, BufferedImage tile, int fromRow, int rowCount, int y) throws IOException {
+            if (tile.getWidth() != width) {
+                throw new IOException("Tile at row " + y + " is " + tile.getWidth() + " pixels wide, expected " + width);
+            }
+            if (rowCount <= 0) {
+                return 0;
+            }
+
+            Tile entry = new Tile(String.format("tile-%05d.png", tiles.size()), y, rowCount);
+            File file = new File(directory, entry.fileName);
+            if (!ImageIO.write(tile.getSubimage(0, fromRow, width, rowCount), "png", file)) {
+                throw new IOException("No PNG writer available for " + file);
+            }
+            tiles.add(entry);
+            bytes += file.length();
+            return rowCount;
+        }
+
+        /**
+         * Writes the manifest once every row of the page has been saved.
+         *
+         * @return Total size of the tiles and manifest in bytes
+         */
+        private long write(File directory) throws IOException {
+            checkComplete(directory);
+            StringBuilder content = new StringBuilder();
+            content.append(width).append('\t').append(height).append('\n');
+            for (Tile tile : tiles) {
+                content.append(tile.fileName).append('\t').append(tile.y).append('\t').append(tile.height).append('\n');
+            }
+            byte[] data = content.toString().getBytes(StandardCharsets.UTF_8);
+            Files.write(new File(directory, MANIFEST_FILE).toPath(), data);
+            return bytes + data.length;
+        }
+
+        /**
+         * Checks that the tiles cover the page without gaps or overlaps.
+         */
+        private void checkComplete(File directory) throws IOException {
+            int rows = 0;
+            for (Tile tile : tiles) {
+                if (tile.y != rows) {
+                    throw new IOException("Tile " + tile.fileName + " in " + directory + " starts at row " + tile.y
+                            + ", expected " + rows);
+                }
+                rows += tile.height;
+            }
+            if (rows != height) {
+                throw new IOException("Captured " + rows + " of " + height + " rows into " + directory);
+            }
+        }
+    }
+
+    /**
+     * One tile file and the rows of the page it holds.
+     */
+    static final class Tile {
+        final String fileName;
+        final int y;
+        final int height;
+
+        Tile(String fileName, int y, int height) {
+            this.fileName = fileName;
+            this.y = y;
+            this.height = height;
+        }
+    }
+}
@@ -4,8 +4,6 @@ import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 
 import javax.imageio.ImageIO;
 
@@ -20,6 +18,9 @@ public class UIVerificationUtil {
     private static final String COMPARISON_DIR = "test-output/screenshot-comparisons";
     private static final double DEFAULT_THRESHOLD = 0.05; // 5% difference threshold
     
+    // Comparisons need lossless full-resolution images, whatever format the run uses for other screenshots
+    private static final CaptureOptions COMPARISON_CAPTURE = CaptureOptions.png();
+    
     /**
      * Compares the current UI state with a baseline screenshot
      * 
@@ -43,7 +44,7 @@ public class UIVerificationUtil {
      */
     public static boolean verifyScreenshotWithBaseline(WebDriver driver, String testName, String baselineImagePath, double threshold) {
         // Take current screenshot
-        String currentScreenshotPath = ScreenshotUtil.takeScreenshot(driver, testName, "verification");
+        String currentScreenshotPath = ScreenshotUtil.takeScreenshot(driver, testName, "verification", COMPARISON_CAPTURE);
         if (currentScreenshotPath == null) {
             return false;
         }
@@ -87,7 +88,8 @@ public class UIVerificationUtil {
     public static boolean verifyElementWithBaseline(WebDriver driver, WebElement element, String testName, 
             String elementName, String baselineImagePath, double threshold) {
         // Take current element screenshot
-        String currentScreenshotPath = ScreenshotUtil.takeElementScreenshot(driver, element, testName, elementName);
+        String currentScreenshotPath = ScreenshotUtil.takeElementScreenshot(driver, element, testName, elementName,
+                COMPARISON_CAPTURE);
         if (currentScreenshotPath == null) {
             return false;
         }
@@ -103,6 +105,55 @@ public class UIVerificationUtil {
         }
     }
     
+    /**
+     * Compares the whole page with a full-page baseline screenshot
+     * 
+     * @param driver WebDriver instance
+     * @param testName Name of the test
+     * @param baselineImagePath Path to the baseline tile directory created by {@link #createFullPageBaseline}
+     * @return true if images match within threshold, false otherwise
+     */
+    public static boolean verifyFullPageWithBaseline(WebDriver driver, String testName, String baselineImagePath) {
+        return verifyFullPageWithBaseline(driver, testName, baselineImagePath, DEFAULT_THRESHOLD);
+    }
+    
+    /**
+     * Compares the whole page with a full-page baseline screenshot using custom threshold
+     * Both captures are compared one tile at a time, so long pages never have to be decoded at once
+     * 
+     * @param driver WebDriver instance
+     * @param testName Name of the test
+     * @param baselineImagePath Path to the baseline tile directory created by {@link #createFullPageBaseline}
+     * @param threshold Difference threshold (0.0 - 1.0)
+     * @return true if images match within threshold, false otherwise
+     */
+    public static boolean verifyFullPageWithBaseline(WebDriver driver, String testName, String baselineImagePath,
+            double threshold) {
+        String currentScreenshotPath = ScreenshotUtil.takeFullPageScreenshot(driver, testName, "verification");
+        if (currentScreenshotPath == null) {
+            return false;
+        }
+        
+        try {
+            return compareImagesInTiles(new File(baselineImagePath), new File(currentScreenshotPath), testName, threshold);
+        } catch (IOException e) {
+            System.err.println("Failed to compare full-page images: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Creates a full-page baseline screenshot for future comparisons
+     * 
+     * @param driver WebDriver instance
+     * @param testName Name of the test
+     * @return Path to the created baseline tile directory
+     */
+    public static String createFullPageBaseline(WebDriver driver, String testName) {
+        return ScreenshotUtil.takeFullPageScreenshot(driver, testName, "baseline");
+    }
+    
     /**
      * Creates a baseline screenshot for future comparisons
      * 
@@ -111,7 +162,7 @@ public class UIVerificationUtil {
      * @return Path to the created baseline image
      */
     public static String createBaseline(WebDriver driver, String testName) {
-        return ScreenshotUtil.takeScreenshot(driver, testName, "baseline");
+        return ScreenshotUtil.takeScreenshot(driver, testName, "baseline", COMPARISON_CAPTURE);
     }
     
     /**
@@ -124,7 +175,7 @@ public class UIVerificationUtil {
      * @return Path to the created baseline image
      */
     public static String createElementBaseline(WebDriver driver, WebElement element, String testName, String elementName) {
-        return ScreenshotUtil.takeElementScreenshot(driver, element, testName, elementName);
+        return ScreenshotUtil.takeElementScreenshot(driver, element, testName, elementName, COMPARISON_CAPTURE);
     }
     
     /**
@@ -139,11 +190,9 @@ public class UIVerificationUtil {
      */
     private static boolean compareImages(File baselineImage, File currentImage, String testName, double threshold) 
             throws IOException {
-        // Create comparison directory if it doesn't exist
-        File comparisonDir = new File(COMPARISON_DIR);
-        if (!comparisonDir.exists()) {
-            comparisonDir.mkdirs();
-        }
+        // Either screenshot may still be queued for writing in asynchronous mode
+        ScreenshotWriter.awaitWrite(baselineImage.getPath());
+        ScreenshotWriter.awaitWrite(currentImage.getPath());
         
         // Read images
         BufferedImage expectedImage = ImageIO.read(baselineImage);
@@ -163,8 +212,7 @@ public class UIVerificationUtil {
                     BufferedImage.TYPE_INT_RGB);
             
             // Save the difference image
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-            String diffImagePath = COMPARISON_DIR + File.separator + testName + "_diff_" + timestamp + ".png";
+            String diffImagePath = ArtifactPathAllocator.allocate(COMPARISON_DIR, testName, "diff", "png");
             ImageIO.write(diffImage, "png", new File(diffImagePath));
             
             return false;
@@ -176,32 +224,15 @@ public class UIVerificationUtil {
                 expectedImage.getHeight(),
                 BufferedImage.TYPE_INT_RGB);
         
-        int diffPixels = 0;
+        int diffPixels = countDifferences(expectedImage, actualImage, diffImage);
         int totalPixels = expectedImage.getWidth() * expectedImage.getHeight();
         
-        for (int y = 0; y < expectedImage.getHeight(); y++) {
-            for (int x = 0; x < expectedImage.getWidth(); x++) {
-                int expectedRGB = expectedImage.getRGB(x, y);
-                int actualRGB = actualImage.getRGB(x, y);
-                
-                if (expectedRGB != actualRGB) {
-                    diffPixels++;
-                    // Mark the difference pixel in red
-                    diffImage.setRGB(x, y, Color.RED.getRGB());
-                } else {
-                    // Copy the original pixel
-                    diffImage.setRGB(x, y, expectedRGB);
-                }
-            }
-        }
-        
         // Calculate difference percentage
         double diffPercentage = (double) diffPixels / totalPixels;
         
         // Save the difference image if threshold exceeded
         if (diffPercentage > threshold) {
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-            String diffImagePath = COMPARISON_DIR + File.separator + testName + "_diff_" + timestamp + ".png";
+            String diffImagePath = ArtifactPathAllocator.allocate(COMPARISON_DIR, testName, "diff", "png");
             ImageIO.write(diffImage, "png", new File(diffImagePath));
             
             System.out.println("Images differ by " + String.format("%.2f%%", diffPercentage * 100) + 
@@ -215,4 +246,114 @@ public class UIVerificationUtil {
                 String.format("%.2f%%", diffPercentage * 100));
         return true;
     }
+    
+    /**
+     * Compares two full-page captures tile by tile
+     * Both captures must cover the same page size with the same tile layout, as they do when taken with
+     * the same tile height; a difference image is saved for every tile that exceeds the threshold on its own
+     * 
+     * @param baselineTiles Baseline tile directory
+     * @param currentTiles Current tile directory
+     * @param testName Name of the test (used for diff image naming)
+     * @param threshold Difference threshold (0.0 - 1.0)
+     * @return true if images match within threshold, false otherwise
+     * @throws IOException if a capture is incomplete or image processing fails
+     */
+    private static boolean compareImagesInTiles(File baselineTiles, File currentTiles, String testName, double threshold)
+            throws IOException {
+        TiledScreenshot.Manifest expected = TiledScreenshot.readManifest(baselineTiles);
+        TiledScreenshot.Manifest actual = TiledScreenshot.readManifest(currentTiles);
+        if (expected.width != actual.width || expected.height != actual.height) {
+            System.out.println("Images have different dimensions. Expected: " + expected.width + "x" + expected.height
+                    + ", Actual: " + actual.width + "x" + actual.height);
+            return false;
+        }
+        if (expected.tiles.size() != actual.tiles.size()) {
+            System.out.println("Captures have different tile layouts. Expected " + expected.tiles.size()
+                    + " tiles, actual " + actual.tiles.size() + "; capture both with the same tile height");
+            return false;
+        }
+        
+        long diffPixels = 0;
+        for (int i = 0; i < expected.tiles.size(); i++) {
+            TiledScreenshot.Tile expectedTile = expected.tiles.get(i);
+            TiledScreenshot.Tile actualTile = actual.tiles.get(i);
+            if (expectedTile.y != actualTile.y || expectedTile.height != actualTile.height) {
+                System.out.println("Captures have different tile layouts at tile " + i
+                        + "; capture both with the same tile height");
+                return false;
+            }
+            
+            BufferedImage expectedImage = readTile(baselineTiles, expectedTile);
+            BufferedImage actualImage = readTile(currentTiles, actualTile);
+            BufferedImage diffTile = new BufferedImage(expected.width, expectedTile.height, BufferedImage.TYPE_INT_RGB);
+            int tileDiffPixels = countDifferences(expectedImage, actualImage, diffTile);
+            diffPixels += tileDiffPixels;
+            
+            if ((double) tileDiffPixels / ((long) expected.width * expectedTile.height) > threshold) {
+                String diffImagePath = ArtifactPathAllocator.allocate(COMPARISON_DIR, testName,
+                        "diff_rows" + expectedTile.y, "png");
+                ImageIO.write(diffTile, "png", new File(diffImagePath));
+                System.out.println("Difference image saved for rows from " + expectedTile.y + ": " + diffImagePath);
+            }
+        }
+        
+        double diffPercentage = (double) diffPixels / ((long) expected.width * expected.height);
+        if (diffPercentage > threshold) {
+            System.out.println("Images differ by " + String.format("%.2f%%", diffPercentage * 100) + 
+                    ", which exceeds the threshold of " + String.format("%.2f%%", threshold * 100));
+            return false;
+        }
+        
+        System.out.println("Images match within threshold. Difference: " + 
+                String.format("%.2f%%", diffPercentage * 100));
+        return true;
+    }
+    
+    /**
+     * Reads one tile of a full-page capture and checks it has the size the manifest records
+     * 
+     * @param directory Tile directory
+     * @param tile Tile entry from the manifest
+     * @return Decoded tile
+     * @throws IOException if the tile is missing, unreadable or of the wrong size
+     */
+    private static BufferedImage readTile(File directory, TiledScreenshot.Tile tile) throws IOException {
+        File file = new File(directory, tile.fileName);
+        BufferedImage image = ImageIO.read(file);
+        if (image == null || image.getHeight() != tile.height) {
+            throw new IOException("Tile " + file + " is missing or does not match its manifest entry");
+        }
+        return image;
+    }
+    
+    /**
+     * Counts the pixels that differ between two images of the same size and fills the diff image
+     * Differing pixels are marked in red, the others copied from the expected image
+     * 
+     * @param expectedImage Expected image
+     * @param actualImage Actual image
+     * @param diffImage Image of the same size to draw the differences into
+     * @return Number of differing pixels
+     */
+    private static int countDifferences(BufferedImage expectedImage, BufferedImage actualImage, BufferedImage diffImage) {
+        int diffPixels = 0;
+        
+        for (int y = 0; y < expectedImage.getHeight(); y++) {
+            for (int x = 0; x < expectedImage.getWidth(); x++) {
+                int expectedRGB = expectedImage.getRGB(x, y);
+                int actualRGB = actualImage.getRGB(x, y);
+                
+                if (expectedRGB != actualRGB) {
+                    diffPixels++;
+                    // Mark the difference pixel in red
+                    diffImage.setRGB(x, y, Color.RED.getRGB());
+                } else {
+                    // Copy the original pixel
+                    diffImage.setRGB(x, y, expectedRGB);
+                }
+            }
+        }
+        return diffPixels;
+    }
 }
\ No newline at end of file
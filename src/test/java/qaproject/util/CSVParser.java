@@ -0,0 +1,216 @@
+package qaproject.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming RFC 4180 CSV parser.
+ * Handles quoted fields containing delimiters and line breaks, escaped quotes ({@code ""}),
+ * multi-character delimiters, a leading byte order mark and CRLF, LF or CR line endings.
+ * The read buffer, field buffer and field array are reused across fields and records, so the
+ * only allocations per record are the field strings themselves.
+ */
+class CSVParser implements Closeable {
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final Reader in;
+    private final char[] delimiter;
+    private final char[] buffer = new char[65536];
+    private int pos;
+    private int limit;
+    private boolean started;
+
+    private final StringBuilder field = new StringBuilder(64);
+    private String[] fields = new String[16];
+    private int fieldCount;
+    private boolean sawContent;
+
+    /**
+     * Creates a parser over a character stream.
+     *
+     * @param in Source of CSV text; closed by {@link #close()}
+     * @param delimiter String used to separate values, one or more characters
+     */
+    CSVParser(Reader in, String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("CSV delimiter must not be empty");
+        }
+        this.in = in;
+        this.delimiter = delimiter.toCharArray();
+    }
+
+    /**
+     * Reads the next non-blank record. Records that contain nothing but whitespace are skipped.
+     *
+     * @param wanted Flags for the field positions to build strings for, or null for all fields;
+     *               other fields are scanned but read back as null
+     * @return Number of fields in the record, or -1 at end of input
+     * @throws IOException If the input cannot be read
+     */
+    int readRecord(boolean[] wanted) throws IOException {
+        while (true) {
+            int count = parseRecord(wanted);
+            if (count < 0 || count > 1 || sawContent) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Returns a field of the record last read by {@link #readRecord(boolean[])}.
+     *
+     * @param index Zero-based field position
+     * @return Field value, or null if the field was not requested
+     */
+    String getField(int index) {
+        return fields[index];
+    }
+
+    private int parseRecord(boolean[] wanted) throws IOException {
+        if (!started) {
+            started = true;
+            // Skip a UTF-8 byte order mark decoded as U+FEFF
+            if (ensure(1) && buffer[pos] == '\uFEFF') {
+                pos++;
+            }
+        }
+        if (!ensure(1)) {
+            return -1;
+        }
+
+        fieldCount = 0;
+        sawContent = false;
+        field.setLength(0);
+        boolean keep = isWanted(wanted, 0);
+        int state = FIELD_START;
+
+        while (true) {
+            if (!ensure(1)) {
+                // End of input ends the record, even inside an unterminated quote
+                endField(keep);
+                return fieldCount;
+            }
+            char c = buffer[pos];
+
+            switch (state) {
+                case FIELD_START:
+                    if (c == '"') {
+                        sawContent = true;
+                        state = QUOTED;
+                        pos++;
+                    } else {
+                        state = UNQUOTED;
+                    }
+                    break;
+                case QUOTED:
+                    if (c == '"') {
+                        state = QUOTE_IN_QUOTED;
+                    } else if (keep) {
+                        field.append(c);
+                    }
+                    pos++;
+                    break;
+                case QUOTE_IN_QUOTED:
+                    if (c == '"') {
+                        // Escaped quote
+                        if (keep) {
+                            field.append('"');
+                        }
+                        state = QUOTED;
+                        pos++;
+                    } else {
+                        // Closing quote; anything up to the next separator is kept as unquoted text
+                        state = UNQUOTED;
+                    }
+                    break;
+                default:
+                    if (isDelimiterAt()) {
+                        endField(keep);
+                        pos += delimiter.length;
+                        keep = isWanted(wanted, fieldCount);
+                        state = FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        pos++;
+                        if (c == '\r' && ensure(1) && buffer[pos] == '\n') {
+                            pos++;
+                        }
+                        endField(keep);
+                        return fieldCount;
+                    } else {
+                        if (c > ' ') {
+                            sawContent = true;
+                        }
+                        if (keep) {
+                            field.append(c);
+                        }
+                        pos++;
+                    }
+                    break;
+            }
+        }
+    }
+
+    private static boolean isWanted(boolean[] wanted, int position) {
+        return wanted == null || (position < wanted.length && wanted[position]);
+    }
+
+    private boolean isDelimiterAt() throws IOException {
+        if (buffer[pos] != delimiter[0]) {
+            return false;
+        }
+        if (delimiter.length == 1) {
+            return true;
+        }
+        if (!ensure(delimiter.length)) {
+            return false;
+        }
+        for (int i = 1; i < delimiter.length; i++) {
+            if (buffer[pos + i] != delimiter[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void endField(boolean keep) {
+        if (fieldCount == fields.length) {
+            String[] grown = new String[fields.length * 2];
+            System.arraycopy(fields, 0, grown, 0, fields.length);
+            fields = grown;
+        }
+        fields[fieldCount++] = keep ? field.toString() : null;
+        field.setLength(0);
+    }
+
+    /**
+     * Makes at least {@code count} unread characters available in the buffer if the input has them.
+     */
+    private boolean ensure(int count) throws IOException {
+        if (limit - pos >= count) {
+            return true;
+        }
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        while (limit < count) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -1,69 +1,148 @@
 package qaproject.util;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Utility class for reading data from CSV files.
  * Provides methods to extract test data from CSV files for data-driven testing.
+ * Files ending in {@code .gz} or {@code .zst} are decompressed while they are parsed.
  */
 public class CSVReader {
     
+    private static final int DECOMPRESSION_BUFFER_SIZE = 256 * 1024;
+    private static final boolean[] SKIP_ALL_FIELDS = new boolean[0];
+    
     /**
      * Reads all data from a CSV file.
+     * Follows RFC 4180: quoted values may contain delimiters, line breaks and escaped quotes ({@code ""}).
      * 
      * @param filePath Path to the CSV file
-     * @param delimiter Character used to separate values (default is comma)
+     * @param delimiter String used to separate values (default is comma); may be longer than one character
      * @return List of maps where each map represents a row with column headers as keys
      * @throws IOException If file cannot be read
      */
     public static List<Map<String, String>> readCSV(String filePath, String delimiter) throws IOException {
+        return DataSnapshot.readThrough(filePath, null, "csv:" + delimiter, () -> parseCSV(filePath, delimiter, DataShard.all()));
+    }
+    
+    /**
+     * Parses the rows of one shard of a CSV file.
+     * 
+     * @param filePath Path to the CSV file
+     * @param delimiter Character used to separate values
+     * @param shard Shard of the rows to return; round-robin shards skip other rows without building strings
+     * @return List of maps where each map represents a row with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    private static List<Map<String, String>> parseCSV(String filePath, String delimiter, DataShard shard)
+            throws IOException {
         List<Map<String, String>> data = new ArrayList<>();
-        List<String> headers = new ArrayList<>();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            // Read header line
-            String headerLine = reader.readLine();
-            if (headerLine == null) {
-                throw new IOException("CSV file is empty");
+        try (CSVParser parser = new CSVParser(openReader(filePath), delimiter)) {
+            RowSchema schema = readHeader(parser);
+            readRows(parser, schema, shard, data);
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Parses the data rows that follow the parser's current position.
+     * 
+     * @param parser Parser positioned at the start of a record
+     * @param schema Schema of the file's columns
+     * @param shard Shard of the rows to keep
+     * @param data List the rows are added to
+     * @throws IOException If the file cannot be read
+     */
+    private static void readRows(CSVParser parser, RowSchema schema, DataShard shard, List<Map<String, String>> data)
+            throws IOException {
+        int columnCount = schema.getColumnCount();
+        
+        // Read data rows; blank lines are skipped by the parser
+        for (int rowNumber = 0; ; rowNumber++) {
+            boolean skipped = shard.skipsRow(rowNumber);
+            int fieldCount = parser.readRecord(skipped ? SKIP_ALL_FIELDS : null);
+            if (fieldCount < 0) {
+                break;
             }
-            
-            // Parse headers
-            String[] headerArray = headerLine.split(delimiter);
-            for (String header : headerArray) {
-                headers.add(header.trim());
+            if (skipped) {
+                continue;
             }
             
-            // Read data rows
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Skip empty lines
-                if (line.trim().isEmpty()) {
-                    continue;
+            String[] rowValues = new String[columnCount];
+            
+            // Map values to header positions
+            for (int i = 0; i < columnCount; i++) {
+                if (i < fieldCount) {
+                    rowValues[i] = parser.getField(i).trim();
+                } else {
+                    rowValues[i] = ""; // Empty value for missing columns
                 }
-                
-                // Parse row data
-                String[] values = parseCSVLine(line, delimiter);
-                Map<String, String> rowData = new HashMap<>();
-                
-                // Map values to headers
-                for (int i = 0; i < headers.size(); i++) {
-                    if (i < values.length) {
-                        rowData.put(headers.get(i), values[i].trim());
-                    } else {
-                        rowData.put(headers.get(i), ""); // Empty value for missing columns
-                    }
+            }
+            
+            DataRow row = new DataRow(schema, rowValues);
+            if (shard.includes(rowNumber, row)) {
+                data.add(row);
+            }
+        }
+    }
+    
+    /**
+     * Parses the data rows in a byte range of an uncompressed CSV file, such as the records
+     * appended since the file was last read.
+     * 
+     * @param filePath Path to the CSV file
+     * @param delimiter Character used to separate values
+     * @param schema Schema of the file's columns, read earlier from its header
+     * @param start Offset of the first byte to parse; must be the start of a record
+     * @param end Offset just past the last byte to parse
+     * @return Rows in the range
+     * @throws IOException If file cannot be read
+     */
+    static List<Map<String, String>> readRows(String filePath, String delimiter, RowSchema schema, long start, long end)
+            throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("CSV range of " + (end - start) + " bytes is too large to read at once");
+        }
+        
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, start + bytes.position()) < 0) {
+                    throw new IOException("CSV file '" + filePath + "' was truncated while reading");
                 }
-                
-                data.add(rowData);
             }
         }
         
+        List<Map<String, String>> data = new ArrayList<>();
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes.array()), StandardCharsets.UTF_8);
+        try (CSVParser parser = new CSVParser(reader, delimiter)) {
+            readRows(parser, schema, DataShard.all(), data);
+        }
         return data;
     }
     
@@ -80,7 +159,8 @@ public class CSVReader {
     
     /**
      * Reads data from a CSV file and returns it as a two-dimensional array.
-     * Suitable for use with TestNG DataProvider.
+     * Suitable for use with TestNG DataProvider. Only the rows of the shard configured
+     * through system properties are returned; see {@link DataShard#current()}.
      * 
      * @param filePath Path to the CSV file
      * @param delimiter Character used to separate values
@@ -88,7 +168,28 @@ public class CSVReader {
      * @throws IOException If file cannot be read
      */
     public static Object[][] readCSVAsDataProvider(String filePath, String delimiter) throws IOException {
-        List<Map<String, String>> csvData = readCSV(filePath, delimiter);
+        return readCSVAsDataProvider(filePath, delimiter, DataShard.current());
+    }
+    
+    /**
+     * Reads the rows of one shard of a CSV file and returns them as a two-dimensional array.
+     * Unless a fresh snapshot already holds the parsed file, rows of other round-robin shards
+     * are skipped without building strings.
+     * 
+     * @param filePath Path to the CSV file
+     * @param delimiter Character used to separate values
+     * @param shard Shard of the rows to return
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readCSVAsDataProvider(String filePath, String delimiter, DataShard shard) throws IOException {
+        List<Map<String, String>> csvData;
+        if (shard.isAll()) {
+            csvData = readCSV(filePath, delimiter);
+        } else {
+            List<Map<String, String>> snapshot = DataSnapshot.loadIfFresh(filePath, null, "csv:" + delimiter);
+            csvData = snapshot != null ? shard.select(snapshot) : parseCSV(filePath, delimiter, shard);
+        }
         Object[][] data = new Object[csvData.size()][1];
         
         for (int i = 0; i < csvData.size(); i++) {
@@ -111,6 +212,10 @@ public class CSVReader {
     
     /**
      * Reads data from a CSV file and returns it as a two-dimensional array with specific columns only.
+     * The projection is applied while parsing: fields outside the requested columns are skipped
+     * without building strings. Only the rows of the shard configured through system properties
+     * are returned; with a shard configured, its rows are parsed in full so that hash shards see
+     * every value, and projected afterwards.
      * 
      * @param filePath Path to the CSV file
      * @param delimiter Character used to separate values
@@ -119,11 +224,143 @@ public class CSVReader {
      * @throws IOException If file cannot be read
      */
     public static Object[][] readCSVAsDataProvider(String filePath, String delimiter, String[] columns) throws IOException {
-        List<Map<String, String>> csvData = readCSV(filePath, delimiter);
-        Object[][] data = new Object[csvData.size()][columns.length];
+        DataShard shard = DataShard.current();
+        List<Map<String, String>> snapshot = DataSnapshot.loadIfFresh(filePath, null, "csv:" + delimiter);
+        if (snapshot != null) {
+            return project(shard.select(snapshot), columns);
+        }
+        if (!shard.isAll()) {
+            return project(parseCSV(filePath, delimiter, shard), columns);
+        }
         
-        for (int i = 0; i < csvData.size(); i++) {
-            Map<String, String> row = csvData.get(i);
+        List<Object[]> rows = new ArrayList<>();
+        Iterator<Object[]> iterator = readCSVAsIterator(filePath, delimiter, columns);
+        while (iterator.hasNext()) {
+            rows.add(iterator.next());
+        }
+        
+        return rows.toArray(new Object[0][]);
+    }
+    
+    /**
+     * Reads data from a CSV file and returns it as a two-dimensional array of typed records.
+     * Column positions are resolved once, and each row is converted by the factory without
+     * reflection or map lookups. Unless a fresh snapshot of the file exists, only the factory's
+     * columns are materialized by the parser, as with the column projection overload. Only the
+     * rows of the shard configured through system properties are converted; see {@link DataShard#current()}.
+     * 
+     * @param filePath Path to the CSV file
+     * @param delimiter Character used to separate values
+     * @param factory Converter from row values to records, usually generated by {@link RecordGenerator}
+     * @param <T> Record type
+     * @return Two-dimensional Object array where each inner array holds one record
+     * @throws IOException If file cannot be read, a column is missing or a value cannot be converted
+     */
+    public static <T> Object[][] readCSVAsDataProvider(String filePath, String delimiter, RecordFactory<T> factory)
+            throws IOException {
+        DataShard shard = DataShard.current();
+        List<Map<String, String>> snapshot = DataSnapshot.loadIfFresh(filePath, null, "csv:" + delimiter);
+        if (snapshot != null) {
+            return toRecords(shard.select(snapshot), factory);
+        }
+        if (!shard.isAll()) {
+            return toRecords(parseCSV(filePath, delimiter, shard), factory);
+        }
+        
+        String[] columns = factory.columns();
+        List<Object[]> records = new ArrayList<>();
+        try (CSVRowIterator iterator = new CSVRowIterator(filePath, delimiter, columns, DataShard.all())) {
+            checkColumns(iterator.schema, factory);
+            
+            String[] values = new String[columns.length];
+            while (iterator.hasNext()) {
+                Object[] fields = iterator.next();
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = (String) fields[j];
+                }
+                try {
+                    records.add(new Object[] { factory.create(values) });
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Failed to convert data row " + (records.size() + 1) + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        return records.toArray(new Object[0][]);
+    }
+    
+    /**
+     * Opens a CSV file as a live data source that is reloaded whenever the file changes.
+     * Rows appended to an uncompressed file are parsed incrementally; other changes re-parse the file.
+     * 
+     * @param filePath Path to the CSV file
+     * @param delimiter Character used to separate values
+     * @return Live data source; close it to stop watching the file
+     * @throws IOException If file cannot be read
+     */
+    public static LiveDataSource watchCSV(String filePath, String delimiter) throws IOException {
+        String name = filePath.toLowerCase();
+        LiveDataSource.Appender appender = name.endsWith(".gz") || name.endsWith(".zst")
+                ? null
+                : (schema, start, end) -> readRows(filePath, delimiter, schema, start, end);
+        return new LiveDataSource(filePath, () -> readCSV(filePath, delimiter), appender);
+    }
+    
+    /**
+     * Reads data from a CSV file lazily, one row at a time.
+     * Suitable for use with TestNG DataProviders declared to return {@code Iterator<Object[]>},
+     * so that memory stays flat and the first test starts before the whole file is parsed.
+     * The underlying file is closed once the last row has been read. Only the rows of the shard
+     * configured through system properties are returned; see {@link DataShard#current()}.
+     * 
+     * @param filePath Path to the CSV file
+     * @param delimiter Character used to separate values
+     * @return Iterator where each element is a single-element array holding the row map
+     * @throws IOException If file cannot be opened or the header cannot be read
+     */
+    public static Iterator<Object[]> readCSVAsIterator(String filePath, String delimiter) throws IOException {
+        return new CSVRowIterator(filePath, delimiter, null, DataShard.current());
+    }
+    
+    /**
+     * Reads data from a CSV file lazily using comma as the default delimiter.
+     * 
+     * @param filePath Path to the CSV file
+     * @return Iterator where each element is a single-element array holding the row map
+     * @throws IOException If file cannot be opened or the header cannot be read
+     */
+    public static Iterator<Object[]> readCSVAsIterator(String filePath) throws IOException {
+        return readCSVAsIterator(filePath, ",");
+    }
+    
+    /**
+     * Reads data from a CSV file lazily, returning only the specified columns for each row.
+     * Only the rows of the shard configured through system properties are returned.
+     * 
+     * @param filePath Path to the CSV file
+     * @param delimiter Character used to separate values
+     * @param columns Array of column names to include
+     * @return Iterator where each element contains values for the specified columns
+     * @throws IOException If file cannot be opened or the header cannot be read
+     */
+    public static Iterator<Object[]> readCSVAsIterator(String filePath, String delimiter, String[] columns) throws IOException {
+        return new CSVRowIterator(filePath, delimiter, columns, DataShard.current());
+    }
+    
+    /**
+     * Picks the requested columns out of already parsed rows.
+     * 
+     * @param rows Parsed rows
+     * @param columns Array of column names to include
+     * @return Two-dimensional Object array where each inner array contains values for specified columns
+     */
+    static Object[][] project(List<Map<String, String>> rows, String[] columns) {
+        Object[][] data = new Object[rows.size()][columns.length];
+        
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, String> row = rows.get(i);
             for (int j = 0; j < columns.length; j++) {
                 data[i][j] = row.get(columns[j]);
             }
@@ -133,36 +370,274 @@ public class CSVReader {
     }
     
     /**
-     * Parses a CSV line considering quoted values that may contain delimiters.
+     * Converts rows to records with a record factory.
+     * Rows are expected to come from a single reader call and therefore share one schema.
      * 
-     * @param line The CSV line to parse
-     * @param delimiter The delimiter character
-     * @return Array of values from the line
+     * @param rows Rows read from a data source
+     * @param factory Converter from row values to records
+     * @return Two-dimensional Object array where each inner array holds one record
+     * @throws IOException If a column is missing or a value cannot be converted
      */
-    private static String[] parseCSVLine(String line, String delimiter) {
-        List<String> values = new ArrayList<>();
-        StringBuilder currentValue = new StringBuilder();
-        boolean inQuotes = false;
+    static Object[][] toRecords(List<Map<String, String>> rows, RecordFactory<?> factory) throws IOException {
+        Object[][] data = new Object[rows.size()][1];
+        if (rows.isEmpty()) {
+            return data;
+        }
+        
+        // Resolve the record's columns to positions once
+        String[] columns = factory.columns();
+        RowSchema schema = ((DataRow) rows.get(0)).getSchema();
+        checkColumns(schema, factory);
+        int[] positions = new int[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            positions[j] = schema.indexOf(columns[j]);
+        }
         
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
+        String[] values = new String[columns.length];
+        for (int i = 0; i < rows.size(); i++) {
+            DataRow row = (DataRow) rows.get(i);
+            for (int j = 0; j < positions.length; j++) {
+                values[j] = row.get(positions[j]);
+            }
+            try {
+                data[i][0] = factory.create(values);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Failed to convert data row " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Checks the header of a data source against the columns of a record factory.
+     * 
+     * @param schema Header of the data source
+     * @param factory Converter from row values to records
+     * @throws IOException If a record column is missing, or the factory requires exact columns and
+     *                     the data source has others
+     */
+    static void checkColumns(RowSchema schema, RecordFactory<?> factory) throws IOException {
+        String[] columns = factory.columns();
+        List<String> missing = new ArrayList<>();
+        for (String column : columns) {
+            if (schema.indexOf(column) < 0) {
+                missing.add(column);
+            }
+        }
+        List<String> unexpected = new ArrayList<>();
+        if (factory.requiresExactColumns()) {
+            Set<String> expected = new HashSet<>(Arrays.asList(columns));
+            for (String column : schema.getColumnNames()) {
+                if (!expected.contains(column)) {
+                    unexpected.add(column);
+                }
+            }
+        }
+        if (missing.isEmpty() && unexpected.isEmpty()) {
+            return;
+        }
+        
+        StringBuilder message = new StringBuilder("Data file columns do not match the record");
+        if (!missing.isEmpty()) {
+            message.append("; missing: ").append(missing);
+        }
+        if (!unexpected.isEmpty()) {
+            message.append("; not in the record: ").append(unexpected);
+        }
+        if (factory.requiresExactColumns()) {
+            message.append(". Regenerate the record class with RecordGenerator");
+        }
+        throw new IOException(message.toString());
+    }
+    
+    /**
+     * Opens a CSV file for reading, decompressing {@code .gz} and {@code .zst} files on the fly.
+     * Zstandard support needs zstd-jni ({@code com.github.luben:zstd-jni}) on the test classpath.
+     * 
+     * @param filePath Path to the CSV file
+     * @return Reader over the decompressed text
+     * @throws IOException If the file cannot be opened or its compression is not supported
+     */
+    private static Reader openReader(String filePath) throws IOException {
+        String name = filePath.toLowerCase();
+        if (!name.endsWith(".gz") && !name.endsWith(".zst")) {
+            return new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8);
+        }
+        
+        InputStream file = new FileInputStream(filePath);
+        try {
+            InputStream in = name.endsWith(".gz")
+                    ? new GZIPInputStream(file, DECOMPRESSION_BUFFER_SIZE)
+                    : openZstd(file, filePath);
+            return new InputStreamReader(new BufferedInputStream(in, DECOMPRESSION_BUFFER_SIZE),
+                    StandardCharsets.UTF_8);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Wraps a stream in zstd-jni's decompressor, looked up reflectively so that the library
+     * is only needed by suites that actually read {@code .zst} files.
+     */
+    private static InputStream openZstd(InputStream in, String filePath) throws IOException {
+        try {
+            Class<?> zstdStream = Class.forName("com.github.luben.zstd.ZstdInputStream");
+            return (InputStream) zstdStream.getConstructor(InputStream.class).newInstance(in);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Reading '" + filePath + "' requires zstd-jni (com.github.luben:zstd-jni) on the classpath", e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to open zstd stream for '" + filePath + "'", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Failed to open zstd stream for '" + filePath + "'", e);
+        }
+    }
+    
+    /**
+     * Reads the header record and builds the row schema from it.
+     * 
+     * @param parser Parser positioned at the start of the file
+     * @return Schema of the file's columns
+     * @throws IOException If the file is empty or cannot be read
+     */
+    private static RowSchema readHeader(CSVParser parser) throws IOException {
+        int headerCount = parser.readRecord(null);
+        if (headerCount < 0) {
+            throw new IOException("CSV file is empty");
+        }
+        
+        String[] headers = new String[headerCount];
+        for (int i = 0; i < headerCount; i++) {
+            headers[i] = parser.getField(i).trim();
+        }
+        return new RowSchema(headers);
+    }
+    
+    /**
+     * Iterator that reads and parses one CSV row of its shard per call to {@link #next()}.
+     * Rows of other round-robin shards are skipped without building strings; hash shards parse
+     * every field of every row, since the row's values pick its shard.
+     */
+    private static class CSVRowIterator implements Iterator<Object[]>, Closeable {
+        
+        private final CSVParser parser;
+        private final RowSchema schema;
+        private final DataShard shard;
+        private final int[] columnIndexes;
+        private final boolean[] wantedFields;
+        private int nextFieldCount = -1;
+        private int rowNumber;
+        
+        CSVRowIterator(String filePath, String delimiter, String[] columns, DataShard shard) throws IOException {
+            this.parser = new CSVParser(openReader(filePath), delimiter);
+            this.shard = shard;
+            
+            try {
+                schema = readHeader(parser);
+                
+                // Resolve projected columns once; unknown columns yield null like Map.get would
+                if (columns != null && (shard.isAll() || shard.getMode() != DataShard.Mode.HASH)) {
+                    columnIndexes = new int[columns.length];
+                    int lastWanted = -1;
+                    for (int j = 0; j < columns.length; j++) {
+                        columnIndexes[j] = schema.indexOf(columns[j]);
+                        lastWanted = Math.max(lastWanted, columnIndexes[j]);
+                    }
+                    wantedFields = new boolean[lastWanted + 1];
+                    for (int index : columnIndexes) {
+                        if (index >= 0) {
+                            wantedFields[index] = true;
+                        }
+                    }
+                } else if (columns != null) {
+                    columnIndexes = new int[columns.length];
+                    for (int j = 0; j < columns.length; j++) {
+                        columnIndexes[j] = schema.indexOf(columns[j]);
+                    }
+                    wantedFields = null;
+                } else {
+                    columnIndexes = null;
+                    wantedFields = null;
+                }
+                
+                advance();
+            } catch (IOException | RuntimeException e) {
+                parser.close();
+                throw e;
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return nextFieldCount >= 0;
+        }
+        
+        @Override
+        public Object[] next() {
+            if (nextFieldCount < 0) {
+                throw new NoSuchElementException();
+            }
+            
+            // The parser reuses its field array, so values are copied out before advancing
+            Object[] result;
             
-            if (c == '"') {
-                // Toggle quote state
-                inQuotes = !inQuotes;
-            } else if (c == delimiter.charAt(0) && !inQuotes) {
-                // End of value
-                values.add(currentValue.toString());
-                currentValue = new StringBuilder();
+            if (columnIndexes == null) {
+                result = new Object[] { currentRow() };
             } else {
-                // Part of value
-                currentValue.append(c);
+                result = new Object[columnIndexes.length];
+                for (int j = 0; j < columnIndexes.length; j++) {
+                    int index = columnIndexes[j];
+                    if (index >= 0) {
+                        result[j] = index < nextFieldCount ? parser.getField(index).trim() : "";
+                    }
+                }
+            }
+            
+            try {
+                advance();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            return result;
         }
         
-        // Add the last value
-        values.add(currentValue.toString());
+        /**
+         * Moves to the next non-blank record of the shard, closing the file at end of input.
+         */
+        private void advance() throws IOException {
+            while (true) {
+                boolean skipped = shard.skipsRow(rowNumber);
+                nextFieldCount = parser.readRecord(skipped ? SKIP_ALL_FIELDS : wantedFields);
+                if (nextFieldCount < 0) {
+                    close();
+                    return;
+                }
+                int row = rowNumber++;
+                if (!skipped && (shard.getMode() == DataShard.Mode.ROUND_ROBIN || shard.includes(row, currentRow()))) {
+                    return;
+                }
+            }
+        }
         
-        return values.toArray(new String[0]);
+        /**
+         * Builds the row the parser is positioned on, with every column.
+         */
+        private DataRow currentRow() {
+            String[] rowValues = new String[schema.getColumnCount()];
+            for (int i = 0; i < rowValues.length; i++) {
+                rowValues[i] = i < nextFieldCount ? parser.getField(i).trim() : "";
+            }
+            return new DataRow(schema, rowValues);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package qaproject.util;
+
+/**
+ * Storage type of a column in a {@link TypedDataSet}.
+ * Constants are ordered from narrowest to widest, so inference can widen by ordinal.
+ */
+public enum ColumnType {
+
+    /** Whole numbers that fit in an {@code int}, stored in an {@code int[]}. */
+    INT,
+
+    /** Whole numbers that fit in a {@code long}, stored in a {@code long[]}. */
+    LONG,
+
+    /** Decimal numbers, stored in a {@code double[]}. */
+    DOUBLE,
+
+    /** Any other text, stored as strings. */
+    STRING
+}
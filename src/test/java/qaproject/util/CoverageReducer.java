@@ -0,0 +1,305 @@
+package qaproject.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Reduces a data-driven row set to an n-wise covering subset.
+ * Every combination of values that occurs in the rows for any {@code strength} columns
+ * (pairs by default) is still covered by at least one selected row, so parameter interactions
+ * keep their coverage while most redundant rows of a cartesian matrix are dropped.
+ *
+ * <p>Rows are only ever selected, never synthesized, so each returned row keeps its own expected
+ * results. Selection is greedy: the row covering the most still-uncovered combinations is taken
+ * next, ties going to the earlier row, which makes the result deterministic. Selected rows are
+ * returned in their original order.</p>
+ *
+ * <p>Before returning, {@code reduce} checks that no dropped row has a combination the selection misses.
+ * {@link #countUncovered} checks any subset independently, such as one kept in a data file.</p>
+ *
+ * <p>The combinations a row covers are recomputed from its value ids whenever its gain is evaluated
+ * instead of being stored for every row, so memory grows with rows times columns plus the number of
+ * combinations covered so far, not with rows times the number of column combinations.</p>
+ */
+public class CoverageReducer {
+
+    /**
+     * Reduces rows to a pairwise covering subset over all columns.
+     *
+     * @param rows Rows as returned by any of the readers
+     * @return Covering subset in original row order
+     */
+    public static List<Map<String, String>> reduce(List<Map<String, String>> rows) {
+        return reduce(rows, 2, null, null);
+    }
+
+    /**
+     * Reduces rows to an n-wise covering subset.
+     *
+     * @param rows Rows as returned by any of the readers
+     * @param strength Number of columns whose value combinations must stay covered (2 for pairwise)
+     * @param columns Parameter columns to cover, or null for every column; other columns, such as
+     *                expected results, are carried along but do not need to be covered
+     * @param mustInclude Rows that are always selected, such as smoke cases, or null for none
+     * @return Covering subset in original row order
+     * @throws IllegalArgumentException If the strength is less than 1 or a column does not exist
+     */
+    public static List<Map<String, String>> reduce(List<Map<String, String>> rows, int strength, String[] columns,
+            Predicate<Map<String, String>> mustInclude) {
+        if (strength < 1) {
+            throw new IllegalArgumentException("Coverage strength must be at least 1, was " + strength);
+        }
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        if (columns == null) {
+            columns = rows.get(0).keySet().toArray(new String[0]);
+        }
+        if (columns.length == 0) {
+            return rows;
+        }
+        for (String column : columns) {
+            if (!rows.get(0).containsKey(column)) {
+                throw new IllegalArgumentException("Column '" + column + "' not found in the data");
+            }
+        }
+
+        TupleCoverage coverage = new TupleCoverage(rows, columns, Math.min(strength, columns.length));
+        boolean[] selected = new boolean[rows.size()];
+
+        if (mustInclude != null) {
+            for (int r = 0; r < rows.size(); r++) {
+                if (mustInclude.test(rows.get(r))) {
+                    selected[r] = true;
+                    coverage.cover(r);
+                }
+            }
+        }
+
+        // Lazy greedy: a row's gain can only shrink, so a stale gain is an upper bound and a
+        // popped row whose refreshed gain still beats the next candidate is the true maximum
+        PriorityQueue<long[]> candidates = new PriorityQueue<>((a, b) ->
+                a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+        for (int r = 0; r < rows.size(); r++) {
+            if (!selected[r]) {
+                long gain = coverage.gain(r);
+                if (gain > 0) {
+                    candidates.add(new long[] { gain, r });
+                }
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+            long[] candidate = candidates.poll();
+            int r = (int) candidate[1];
+            long gain = coverage.gain(r);
+            if (gain == 0) {
+                continue;
+            }
+            long[] next = candidates.peek();
+            if (next != null && (gain < next[0] || (gain == next[0] && next[1] < r))) {
+                candidate[0] = gain;
+                candidates.add(candidate);
+                continue;
+            }
+            selected[r] = true;
+            coverage.cover(r);
+        }
+
+        for (int r = 0; r < rows.size(); r++) {
+            if (!selected[r] && coverage.gain(r) > 0) {
+                throw new IllegalStateException("Row " + r + " has " + strength + "-wise combinations the reduced rows do not cover");
+            }
+        }
+
+        List<Map<String, String>> result = new ArrayList<>();
+        for (int r = 0; r < rows.size(); r++) {
+            if (selected[r]) {
+                result.add(rows.get(r));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the value combinations that occur in the rows but in no row of a subset.
+     *
+     * @param rows Rows as returned by any of the readers
+     * @param subset Rows expected to cover them, such as the result of {@code reduce}
+     * @param strength Number of columns whose value combinations must be covered (2 for pairwise)
+     * @param columns Parameter columns to check, or null for every column
+     * @return Number of distinct uncovered combinations, 0 if the subset covers the rows
+     * @throws IllegalArgumentException If the strength is less than 1 or a column does not exist
+     */
+    public static long countUncovered(List<Map<String, String>> rows, List<Map<String, String>> subset, int strength,
+            String[] columns) {
+        if (strength < 1) {
+            throw new IllegalArgumentException("Coverage strength must be at least 1, was " + strength);
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        if (columns == null) {
+            columns = rows.get(0).keySet().toArray(new String[0]);
+        }
+        if (columns.length == 0) {
+            return 0;
+        }
+        for (String column : columns) {
+            if (!rows.get(0).containsKey(column)) {
+                throw new IllegalArgumentException("Column '" + column + "' not found in the data");
+            }
+        }
+
+        // Subset rows go after the rows, so both share the same value ids
+        List<Map<String, String>> all = new ArrayList<>(rows.size() + subset.size());
+        all.addAll(rows);
+        all.addAll(subset);
+        TupleCoverage coverage = new TupleCoverage(all, columns, Math.min(strength, columns.length));
+        for (int r = rows.size(); r < all.size(); r++) {
+            coverage.cover(r);
+        }
+
+        // Covering each row after counting it keeps a combination from being counted twice
+        long uncovered = 0;
+        for (int r = 0; r < rows.size(); r++) {
+            uncovered += coverage.gain(r);
+            coverage.cover(r);
+        }
+        return uncovered;
+    }
+
+    /**
+     * Reduces rows to a pairwise covering subset and returns it as a two-dimensional array.
+     * Suitable for use with TestNG DataProvider.
+     *
+     * @param rows Rows as returned by any of the readers
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     */
+    public static Object[][] reduceAsDataProvider(List<Map<String, String>> rows) {
+        return toDataProvider(reduce(rows));
+    }
+
+    /**
+     * Reduces rows to an n-wise covering subset and returns it as a two-dimensional array.
+     * Suitable for use with TestNG DataProvider.
+     *
+     * @param rows Rows as returned by any of the readers
+     * @param strength Number of columns whose value combinations must stay covered (2 for pairwise)
+     * @param columns Parameter columns to cover, or null for every column
+     * @param mustInclude Rows that are always selected, or null for none
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     */
+    public static Object[][] reduceAsDataProvider(List<Map<String, String>> rows, int strength, String[] columns,
+            Predicate<Map<String, String>> mustInclude) {
+        return toDataProvider(reduce(rows, strength, columns, mustInclude));
+    }
+
+    /**
+     * Lists every ascending choice of {@code k} column positions out of {@code n}.
+     */
+    private static int[][] combinations(int n, int k) {
+        List<int[]> result = new ArrayList<>();
+        int[] combination = new int[k];
+        for (int i = 0; i < k; i++) {
+            combination[i] = i;
+        }
+        while (true) {
+            result.add(Arrays.copyOf(combination, k));
+            int i = k - 1;
+            while (i >= 0 && combination[i] == n - k + i) {
+                i--;
+            }
+            if (i < 0) {
+                return result.toArray(new int[0][]);
+            }
+            combination[i]++;
+            for (int j = i + 1; j < k; j++) {
+                combination[j] = combination[j - 1] + 1;
+            }
+        }
+    }
+
+    private static Object[][] toDataProvider(List<Map<String, String>> rows) {
+        Object[][] data = new Object[rows.size()][1];
+
+        for (int i = 0; i < rows.size(); i++) {
+            data[i][0] = rows.get(i);
+        }
+
+        return data;
+    }
+
+    /**
+     * Value combinations covered so far, one set of packed value ids per column combination.
+     */
+    private static final class TupleCoverage {
+
+        private final int[][] valueIds;
+        private final int[][] combinations;
+        private final int bitsPerValue;
+        private final List<Set<Long>> covered;
+
+        TupleCoverage(List<Map<String, String>> rows, String[] columns, int strength) {
+            // Values are replaced by small per-column ids so that a tuple packs into one long
+            valueIds = new int[rows.size()][columns.length];
+            bitsPerValue = 63 / strength;
+            for (int c = 0; c < columns.length; c++) {
+                Map<String, Integer> ids = new HashMap<>();
+                for (int r = 0; r < rows.size(); r++) {
+                    String value = rows.get(r).get(columns[c]);
+                    Integer id = ids.get(value);
+                    if (id == null) {
+                        id = ids.size();
+                        ids.put(value, id);
+                    }
+                    valueIds[r][c] = id;
+                }
+                if (bitsPerValue < 31 && ids.size() > (1 << bitsPerValue)) {
+                    throw new IllegalArgumentException("Column '" + columns[c] + "' has too many distinct values for "
+                            + strength + "-wise coverage");
+                }
+            }
+
+            combinations = combinations(columns.length, strength);
+            covered = new ArrayList<>(combinations.length);
+            for (int i = 0; i < combinations.length; i++) {
+                covered.add(new HashSet<Long>());
+            }
+        }
+
+        /**
+         * Counts the value combinations of the row that are not covered yet.
+         */
+        long gain(int row) {
+            long gain = 0;
+            for (int i = 0; i < combinations.length; i++) {
+                if (!covered.get(i).contains(tuple(row, i))) {
+                    gain++;
+                }
+            }
+            return gain;
+        }
+
+        void cover(int row) {
+            for (int i = 0; i < combinations.length; i++) {
+                covered.get(i).add(tuple(row, i));
+            }
+        }
+
+        private long tuple(int row, int combination) {
+            long key = 0;
+            for (int c : combinations[combination]) {
+                key = (key << bitsPerValue) | valueIds[row][c];
+            }
+            return key;
+        }
+    }
+}
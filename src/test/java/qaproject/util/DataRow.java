@@ -0,0 +1,106 @@
+package qaproject.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact, read-only row of test data.
+ * Stores only the row's values in an array and shares its {@link RowSchema} with every other
+ * row from the same source, while still behaving as a {@code Map<String, String>} keyed by
+ * column name.
+ */
+public class DataRow extends AbstractMap<String, String> {
+    
+    private final RowSchema schema;
+    private final String[] values;
+    
+    /**
+     * Creates a row from values in schema column order.
+     * 
+     * @param schema Schema shared by all rows of the source
+     * @param values Values in schema column order; missing trailing values read as empty strings
+     */
+    public DataRow(RowSchema schema, String[] values) {
+        this.schema = schema;
+        this.values = values;
+    }
+    
+    /**
+     * Constructor for subclasses that resolve values lazily through {@link #value(int)}.
+     */
+    DataRow(RowSchema schema) {
+        this(schema, null);
+    }
+    
+    /**
+     * Returns the schema shared by this row.
+     * 
+     * @return Row schema
+     */
+    public RowSchema getSchema() {
+        return schema;
+    }
+    
+    /**
+     * Returns a value by column position.
+     * 
+     * @param column Zero-based column position
+     * @return Column value
+     */
+    public String get(int column) {
+        return value(column);
+    }
+    
+    /**
+     * Resolves the value stored for a column position.
+     */
+    String value(int column) {
+        return column < values.length ? values[column] : ""; // Empty value for missing columns
+    }
+    
+    @Override
+    public String get(Object key) {
+        int column = schema.indexOf(key);
+        return column < 0 ? null : value(column);
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return schema.indexOf(key) >= 0;
+    }
+    
+    @Override
+    public int size() {
+        return schema.positions().size();
+    }
+    
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                final Iterator<Map.Entry<String, Integer>> columns = schema.positions().entrySet().iterator();
+                return new Iterator<Map.Entry<String, String>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return columns.hasNext();
+                    }
+                    
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        Map.Entry<String, Integer> column = columns.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(column.getKey(), value(column.getValue()));
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return schema.positions().size();
+            }
+        };
+    }
+}
@@ -0,0 +1,217 @@
+package qaproject.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects one shard of a data set, so that parallel threads or separate CI JVMs can each run
+ * a disjoint part of the same data file without copying it.
+ *
+ * <p>The DataProvider methods of the readers apply {@link #current()}, which is configured with
+ * {@code -Dqaproject.data.shardIndex=<0..count-1>} and {@code -Dqaproject.data.shardCount=<count>},
+ * and optionally {@code -Dqaproject.data.shardMode=hash} or {@code range}. Without these properties
+ * every row is returned. Rows are assigned round robin by data row number, or by a stable hash of
+ * the row's values that does not change when rows are inserted elsewhere in the file; every reader
+ * assigns the same rows to the same shard in these modes. In range mode, which only
+ * {@link MappedCSVReader} supports, each shard is a contiguous byte range of the file instead.</p>
+ */
+public class DataShard {
+
+    /**
+     * How rows are assigned to shards.
+     */
+    public enum Mode {
+
+        /** Data row {@code n} belongs to shard {@code n % count}. */
+        ROUND_ROBIN,
+
+        /** A row belongs to the shard picked by a stable hash of its values. */
+        HASH,
+
+        /**
+         * Each shard is a contiguous, record-aligned byte range of the file. Only supported by
+         * {@link MappedCSVReader}; the row-based readers reject it.
+         */
+        RANGE
+    }
+
+    private static final DataShard ALL = new DataShard(0, 1, Mode.ROUND_ROBIN);
+
+    private final int index;
+    private final int count;
+    private final Mode mode;
+
+    private DataShard(int index, int count, Mode mode) {
+        this.index = index;
+        this.count = count;
+        this.mode = mode;
+    }
+
+    /**
+     * Returns a shard that assigns rows round robin.
+     *
+     * @param index Zero-based shard index
+     * @param count Total number of shards
+     * @return Data shard
+     * @throws IllegalArgumentException If the index is not between 0 and {@code count - 1}
+     */
+    public static DataShard of(int index, int count) {
+        return of(index, count, Mode.ROUND_ROBIN);
+    }
+
+    /**
+     * Returns a shard with the given row assignment.
+     *
+     * @param index Zero-based shard index
+     * @param count Total number of shards
+     * @param mode How rows are assigned to shards
+     * @return Data shard
+     * @throws IllegalArgumentException If the index is not between 0 and {@code count - 1}
+     */
+    public static DataShard of(int index, int count, Mode mode) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid data shard " + index + " of " + count);
+        }
+        return count == 1 ? ALL : new DataShard(index, count, mode);
+    }
+
+    /**
+     * Returns the shard that contains every row.
+     *
+     * @return Data shard covering the whole data set
+     */
+    public static DataShard all() {
+        return ALL;
+    }
+
+    /**
+     * Returns the shard configured for this JVM through system properties.
+     *
+     * @return Configured data shard, or {@link #all()} if no shard count is set
+     * @throws IllegalArgumentException If the properties do not describe a valid shard
+     */
+    public static DataShard current() {
+        String count = System.getProperty("qaproject.data.shardCount");
+        if (count == null || count.trim().isEmpty()) {
+            return ALL;
+        }
+        String index = System.getProperty("qaproject.data.shardIndex", "0");
+        String mode = System.getProperty("qaproject.data.shardMode", Mode.ROUND_ROBIN.name());
+        return of(Integer.parseInt(index.trim()), Integer.parseInt(count.trim()),
+                Mode.valueOf(mode.trim().toUpperCase().replace('-', '_')));
+    }
+
+    /**
+     * Returns the zero-based index of this shard.
+     *
+     * @return Shard index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the total number of shards.
+     *
+     * @return Shard count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns how rows are assigned to shards.
+     *
+     * @return Shard mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns whether this shard contains every row.
+     *
+     * @return true if there is only one shard
+     */
+    public boolean isAll() {
+        return count == 1;
+    }
+
+    /**
+     * Returns whether a row can be ruled out by its number alone, before it is parsed.
+     *
+     * @param rowNumber Zero-based data row number
+     * @return true if the row certainly belongs to another shard
+     */
+    boolean skipsRow(int rowNumber) {
+        return mode == Mode.ROUND_ROBIN && rowNumber % count != index;
+    }
+
+    /**
+     * Returns whether a row belongs to this shard.
+     *
+     * @param rowNumber Zero-based data row number
+     * @param row Row values
+     * @return true if the row belongs to this shard
+     * @throws IllegalArgumentException If this is a range shard, which has no row assignment
+     */
+    public boolean includes(int rowNumber, Map<String, String> row) {
+        if (count == 1) {
+            return true;
+        }
+        if (mode == Mode.RANGE) {
+            throw new IllegalArgumentException("Range shards can only be read with MappedCSVReader, not by row: " + this);
+        }
+        if (mode == Mode.ROUND_ROBIN) {
+            return rowNumber % count == index;
+        }
+        return Math.floorMod(hash(row), count) == index;
+    }
+
+    /**
+     * Returns the rows of a data set that belong to this shard, in their original order.
+     *
+     * @param rows All rows of the data set
+     * @return Rows of this shard
+     * @throws IllegalArgumentException If this is a range shard, which has no row assignment
+     */
+    public List<Map<String, String>> select(List<Map<String, String>> rows) {
+        if (count == 1) {
+            return rows;
+        }
+        List<Map<String, String>> selected = new ArrayList<>(rows.size() / count + 1);
+        for (int i = 0; i < rows.size(); i++) {
+            if (includes(i, rows.get(i))) {
+                selected.add(rows.get(i));
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Hashes a row's values in column order. String hash codes are specified by the JLS,
+     * so every JVM assigns the same row to the same shard.
+     */
+    private static int hash(Map<String, String> row) {
+        int hash = 1;
+        if (row instanceof DataRow) {
+            DataRow dataRow = (DataRow) row;
+            for (int i = 0; i < dataRow.getSchema().getColumnCount(); i++) {
+                String value = dataRow.get(i);
+                hash = 31 * hash + (value == null ? 0 : value.hashCode());
+            }
+        } else {
+            for (String value : row.values()) {
+                hash = 31 * hash + (value == null ? 0 : value.hashCode());
+            }
+        }
+        // Spread the high bits so that small shard counts see all of them
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "data shard " + index + " of " + count + " (" + mode + ")";
+    }
+}
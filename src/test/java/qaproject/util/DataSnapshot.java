@@ -0,0 +1,364 @@
+package qaproject.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled binary snapshot of a parsed data source, stored in a cache directory outside the sources.
+ * A snapshot holds the header schema, a de-duplicated string table and fixed-width rows of
+ * string indexes, and is loaded with a single mapped read. Each combination of source, sheet and
+ * parse settings (such as the delimiter) has its own snapshot file.
+ *
+ * <p>A snapshot is used only while the SHA-256 hash of the source matches the one it was written
+ * from; hashing the file is far cheaper than parsing it. When the size of the source differs the
+ * hash is not computed at all. With {@code -Dqaproject.data.snapshotTrustTimestamps=true} a snapshot
+ * is also used without hashing while the size and modification time of the source both match, which
+ * misses an edit that keeps both.</p>
+ *
+ * <p>Snapshots are written to {@code target/data-snapshots}, or to the directory set with
+ * {@code -Dqaproject.data.snapshotDir}. They are enabled by default and can be turned off with
+ * {@code -Dqaproject.data.snapshot=false}.</p>
+ */
+public class DataSnapshot {
+
+    private static final int MAGIC = 0x51445350; // "QDSP"
+    private static final int VERSION = 1;
+    private static final int MTIME_OFFSET = 16;
+    private static final int HASH_LENGTH = 32;
+    private static final String SUFFIX = ".snapshot";
+    private static final String DEFAULT_DIRECTORY = "target" + File.separator + "data-snapshots";
+
+    /**
+     * Parses a data source when no fresh snapshot is available.
+     */
+    interface Loader {
+        List<Map<String, String>> load() throws IOException;
+    }
+
+    /**
+     * Returns whether snapshots are enabled for this run.
+     *
+     * @return true unless {@code qaproject.data.snapshot} is set to false
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("qaproject.data.snapshot", "true"));
+    }
+
+    /**
+     * Returns the directory snapshots are written to.
+     *
+     * @return Directory from {@code qaproject.data.snapshotDir}, or {@code target/data-snapshots}
+     */
+    public static File directory() {
+        return new File(System.getProperty("qaproject.data.snapshotDir", DEFAULT_DIRECTORY));
+    }
+
+    /**
+     * Returns the rows from a fresh snapshot, or parses the source and writes a new snapshot.
+     *
+     * @param filePath Path to the source file
+     * @param sheetName Sheet the rows come from, or null for a CSV file
+     * @param qualifier Parse settings the rows depend on, such as the delimiter
+     * @param loader Parser for the source file
+     * @return Rows of the source
+     * @throws IOException If the source cannot be read
+     */
+    static List<Map<String, String>> readThrough(String filePath, String sheetName, String qualifier, Loader loader)
+            throws IOException {
+        if (!isEnabled()) {
+            return loader.load();
+        }
+
+        File source = new File(filePath);
+        File snapshot = snapshotFile(source, sheetName, qualifier);
+        List<Map<String, String>> rows = loadIfFresh(source, snapshot, qualifier);
+        if (rows != null) {
+            return rows;
+        }
+
+        long length = source.length();
+        long lastModified = source.lastModified();
+        rows = loader.load();
+
+        try {
+            write(source, snapshot, qualifier, length, lastModified, rows);
+        } catch (IOException e) {
+            // A missing snapshot only costs a parse on the next run
+            System.err.println("Could not write data snapshot " + snapshot + ": " + e.getMessage());
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the rows from the snapshot of a source if it is still fresh.
+     *
+     * @param filePath Path to the source file
+     * @param sheetName Sheet the rows come from, or null for a CSV file
+     * @param qualifier Parse settings the rows depend on, such as the delimiter
+     * @return Rows of the source, or null when snapshots are disabled or no fresh snapshot exists
+     */
+    static List<Map<String, String>> loadIfFresh(String filePath, String sheetName, String qualifier) {
+        if (!isEnabled()) {
+            return null;
+        }
+        File source = new File(filePath);
+        return loadIfFresh(source, snapshotFile(source, sheetName, qualifier), qualifier);
+    }
+
+    /**
+     * Names the snapshot after the source, the sheet and hashes of the source directory and the
+     * parse settings, so that files with the same name in different directories, and readers with
+     * different settings, do not keep replacing each other's snapshot.
+     */
+    private static File snapshotFile(File source, String sheetName, String qualifier) {
+        String name = source.getName();
+        if (sheetName != null) {
+            name += "." + sheetName.replaceAll("[^A-Za-z0-9_-]", "_");
+        }
+        // String hash codes are specified by the JLS, so the name is the same on every JVM
+        String parent = source.getAbsoluteFile().getParent();
+        name += "." + String.format("%08x", parent == null ? 0 : parent.hashCode())
+                + "." + String.format("%08x", qualifier.hashCode());
+        return new File(directory(), name + SUFFIX);
+    }
+
+    private static boolean trustTimestamps() {
+        return Boolean.getBoolean("qaproject.data.snapshotTrustTimestamps");
+    }
+
+    private static List<Map<String, String>> loadIfFresh(File source, File snapshot, String qualifier) {
+        if (!snapshot.isFile() || !source.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+
+            long length = buffer.getLong();
+            long lastModified = buffer.getLong();
+            byte[] hash = new byte[HASH_LENGTH];
+            buffer.get(hash);
+            if (!qualifier.equals(readString(buffer))) {
+                return null;
+            }
+
+            if (length != source.length()) {
+                return null;
+            }
+            boolean sameTime = lastModified == source.lastModified();
+            if (!(sameTime && trustTimestamps())) {
+                if (!Arrays.equals(hash, hash(source))) {
+                    return null;
+                }
+                if (!sameTime) {
+                    // Touched but unchanged: record the new time for the timestamp shortcut
+                    updateLastModified(snapshot, source.lastModified());
+                }
+            }
+
+            return readRows(buffer);
+        } catch (IOException | RuntimeException e) {
+            // Unreadable or truncated snapshot: fall back to parsing the source
+            return null;
+        }
+    }
+
+    private static void updateLastModified(File snapshot, long lastModified) {
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, lastModified), MTIME_OFFSET);
+        } catch (IOException e) {
+            // Only means the hash is checked again on the next run
+        }
+    }
+
+    private static List<Map<String, String>> readRows(ByteBuffer buffer) {
+        int columnCount = buffer.getInt();
+        int[] columnIndexes = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnIndexes[i] = buffer.getInt();
+        }
+
+        int stringCount = buffer.getInt();
+        int[] offsets = new int[stringCount + 1];
+        for (int i = 0; i <= stringCount; i++) {
+            offsets[i] = buffer.getInt();
+        }
+        byte[] bytes = new byte[offsets[stringCount]];
+        buffer.get(bytes);
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+
+        String[] columns = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = strings[columnIndexes[i]];
+        }
+        RowSchema schema = new RowSchema(columns);
+
+        // Rows are fixed width, so row r starts at r * columnCount in the cell table
+        int rowCount = buffer.getInt();
+        List<Map<String, String>> rows = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            String[] values = new String[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                values[c] = strings[buffer.getInt()];
+            }
+            rows.add(new DataRow(schema, values));
+        }
+        return rows;
+    }
+
+    private static void write(File source, File snapshot, String qualifier, long length, long lastModified,
+            List<Map<String, String>> rows) throws IOException {
+        RowSchema schema = schemaOf(rows);
+        if (schema == null) {
+            return;
+        }
+
+        byte[] hash = hash(source);
+        if (source.length() != length || source.lastModified() != lastModified) {
+            // Source changed while it was being parsed; the rows may not match the hash
+            return;
+        }
+
+        int columnCount = schema.getColumnCount();
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] columnIndexes = new int[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            columnIndexes[c] = intern(schema.getColumnName(c), stringIndexes, strings);
+        }
+        int[] cells = new int[rows.size() * columnCount];
+        for (int r = 0; r < rows.size(); r++) {
+            DataRow row = (DataRow) rows.get(r);
+            for (int c = 0; c < columnCount; c++) {
+                cells[r * columnCount + c] = intern(row.get(c), stringIndexes, strings);
+            }
+        }
+
+        Path target = snapshot.toPath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), snapshot.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 65536))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(length);
+                out.writeLong(lastModified);
+                out.write(hash);
+                writeString(out, qualifier);
+
+                out.writeInt(columnCount);
+                for (int index : columnIndexes) {
+                    out.writeInt(index);
+                }
+
+                List<byte[]> encoded = new ArrayList<>(strings.size());
+                out.writeInt(strings.size());
+                int offset = 0;
+                out.writeInt(offset);
+                for (String value : strings) {
+                    byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+                    encoded.add(valueBytes);
+                    offset += valueBytes.length;
+                    out.writeInt(offset);
+                }
+                for (byte[] valueBytes : encoded) {
+                    out.write(valueBytes);
+                }
+
+                out.writeInt(rows.size());
+                for (int cell : cells) {
+                    out.writeInt(cell);
+                }
+            }
+
+            // Readers in parallel tests only ever see a complete snapshot
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the schema shared by all rows, or null if the rows cannot be snapshotted.
+     */
+    private static RowSchema schemaOf(List<Map<String, String>> rows) {
+        RowSchema schema = null;
+        for (Map<String, String> row : rows) {
+            if (!(row instanceof DataRow)) {
+                return null;
+            }
+            RowSchema rowSchema = ((DataRow) row).getSchema();
+            if (schema != null && schema != rowSchema) {
+                return null;
+            }
+            schema = rowSchema;
+        }
+        // A source without data rows has nothing worth snapshotting
+        return schema;
+    }
+
+    private static int intern(String value, Map<String, Integer> stringIndexes, List<String> strings) {
+        Integer index = stringIndexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            stringIndexes.put(value, index);
+        }
+        return index;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] hash(File source) throws IOException {
+        try (InputStream in = Files.newInputStream(source.toPath())) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 is not available", e);
+        }
+    }
+}
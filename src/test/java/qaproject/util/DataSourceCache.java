@@ -0,0 +1,290 @@
+package qaproject.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of parsed CSV and Excel data sources.
+ * Entries are keyed by file path, sheet or delimiter, and the file's modification time and size,
+ * so an edited file is parsed again on its next use. When several threads ask for the same
+ * source at once, only one of them parses it and the others wait for its result.
+ * The cache holds at most {@code qaproject.data.cache.maxRows} rows in total (default 1,000,000)
+ * and evicts the least recently used sources first.
+ */
+public class DataSourceCache {
+
+    private static final long MAX_ROWS = Long.getLong("qaproject.data.cache.maxRows", 1_000_000L);
+
+    private static final LinkedHashMap<Key, CompletableFuture<List<Map<String, String>>>> ENTRIES =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedRows;
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    /**
+     * Loads a data source on a cache miss.
+     */
+    private interface Loader {
+        List<Map<String, String>> load() throws IOException;
+    }
+
+    /**
+     * Returns the cached rows of a CSV file, parsing it on first use.
+     *
+     * @param filePath Path to the CSV file
+     * @param delimiter Character used to separate values
+     * @return Unmodifiable list of rows with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    public static List<Map<String, String>> readCSV(String filePath, String delimiter) throws IOException {
+        return get(Key.of("csv", filePath, delimiter), () -> CSVReader.readCSV(filePath, delimiter));
+    }
+
+    /**
+     * Returns the cached rows of a CSV file using comma as the default delimiter.
+     *
+     * @param filePath Path to the CSV file
+     * @return Unmodifiable list of rows with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    public static List<Map<String, String>> readCSV(String filePath) throws IOException {
+        return readCSV(filePath, ",");
+    }
+
+    /**
+     * Returns the cached rows of a CSV file as a two-dimensional array for a TestNG DataProvider.
+     * Only the rows of the shard configured through system properties are returned; see {@link DataShard#current()}.
+     *
+     * @param filePath Path to the CSV file
+     * @param delimiter Character used to separate values
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readCSVAsDataProvider(String filePath, String delimiter) throws IOException {
+        return toDataProvider(readCSV(filePath, delimiter));
+    }
+
+    /**
+     * Returns the cached rows of a CSV file as a two-dimensional array using comma as the default delimiter.
+     *
+     * @param filePath Path to the CSV file
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readCSVAsDataProvider(String filePath) throws IOException {
+        return readCSVAsDataProvider(filePath, ",");
+    }
+
+    /**
+     * Returns the cached rows of an Excel sheet, parsing it on first use.
+     *
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @return Unmodifiable list of rows with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    public static List<Map<String, String>> readSheet(String filePath, String sheetName) throws IOException {
+        return get(Key.of("xlsx", filePath, sheetName), () -> StreamingExcelReader.readSheet(filePath, sheetName));
+    }
+
+    /**
+     * Returns the cached rows of an Excel sheet as a two-dimensional array for a TestNG DataProvider.
+     * Only the rows of the shard configured through system properties are returned; see {@link DataShard#current()}.
+     *
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readSheetAsDataProvider(String filePath, String sheetName) throws IOException {
+        return toDataProvider(readSheet(filePath, sheetName));
+    }
+
+    /**
+     * Returns the number of lookups served from the cache.
+     *
+     * @return Hit count since start or the last {@link #clear()}
+     */
+    public static long getHitCount() {
+        return HITS.get();
+    }
+
+    /**
+     * Returns the number of lookups that had to parse their source.
+     *
+     * @return Miss count since start or the last {@link #clear()}
+     */
+    public static long getMissCount() {
+        return MISSES.get();
+    }
+
+    /**
+     * Returns the number of sources evicted to stay within the row limit.
+     *
+     * @return Eviction count since start or the last {@link #clear()}
+     */
+    public static long getEvictionCount() {
+        return EVICTIONS.get();
+    }
+
+    /**
+     * Removes every cached source and resets the counters.
+     */
+    public static void clear() {
+        synchronized (ENTRIES) {
+            ENTRIES.clear();
+            cachedRows = 0;
+        }
+        HITS.set(0);
+        MISSES.set(0);
+        EVICTIONS.set(0);
+    }
+
+    private static List<Map<String, String>> get(Key key, Loader loader) throws IOException {
+        CompletableFuture<List<Map<String, String>>> entry;
+        boolean owner = false;
+
+        synchronized (ENTRIES) {
+            entry = ENTRIES.get(key);
+            if (entry == null) {
+                // Older versions of the same source can never be hit again
+                Iterator<Map.Entry<Key, CompletableFuture<List<Map<String, String>>>>> iterator = ENTRIES.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Key, CompletableFuture<List<Map<String, String>>>> stale = iterator.next();
+                    if (key.isSameSource(stale.getKey())) {
+                        cachedRows -= loadedRows(stale.getValue());
+                        iterator.remove();
+                    }
+                }
+                entry = new CompletableFuture<>();
+                ENTRIES.put(key, entry);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            MISSES.incrementAndGet();
+            try {
+                List<Map<String, String>> data = Collections.unmodifiableList(loader.load());
+                synchronized (ENTRIES) {
+                    entry.complete(data);
+                    // The entry may have been replaced by a newer file version while loading
+                    if (ENTRIES.get(key) == entry) {
+                        cachedRows += data.size();
+                        evict(key);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (ENTRIES) {
+                    ENTRIES.remove(key, entry);
+                }
+                entry.completeExceptionally(e);
+                throw e;
+            }
+        } else {
+            HITS.incrementAndGet();
+        }
+
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Evicts least recently used, fully loaded sources until the row limit is met.
+     * Must be called while holding the lock on {@link #ENTRIES}.
+     */
+    private static void evict(Key keep) {
+        Iterator<Map.Entry<Key, CompletableFuture<List<Map<String, String>>>>> iterator = ENTRIES.entrySet().iterator();
+        while (cachedRows > MAX_ROWS && iterator.hasNext()) {
+            Map.Entry<Key, CompletableFuture<List<Map<String, String>>>> eldest = iterator.next();
+            if (eldest.getKey().equals(keep) || !eldest.getValue().isDone()) {
+                continue;
+            }
+            cachedRows -= loadedRows(eldest.getValue());
+            iterator.remove();
+            EVICTIONS.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of rows counted for an entry, which is zero until it has loaded.
+     */
+    private static long loadedRows(CompletableFuture<List<Map<String, String>>> entry) {
+        if (!entry.isDone() || entry.isCompletedExceptionally()) {
+            return 0;
+        }
+        return entry.join().size();
+    }
+
+    private static Object[][] toDataProvider(List<Map<String, String>> allRows) {
+        // The whole source stays cached; each JVM hands only its own shard to TestNG
+        List<Map<String, String>> rows = DataShard.current().select(allRows);
+        Object[][] data = new Object[rows.size()][1];
+
+        for (int i = 0; i < rows.size(); i++) {
+            data[i][0] = rows.get(i);
+        }
+
+        return data;
+    }
+
+    /**
+     * Identity of a parsed source at a given file version.
+     */
+    private static final class Key {
+
+        private final String kind;
+        private final String path;
+        private final String qualifier;
+        private final long lastModified;
+        private final long length;
+
+        private Key(String kind, String path, String qualifier, long lastModified, long length) {
+            this.kind = kind;
+            this.path = path;
+            this.qualifier = qualifier;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        static Key of(String kind, String filePath, String qualifier) throws IOException {
+            File file = new File(filePath);
+            return new Key(kind, file.getCanonicalPath(), qualifier, file.lastModified(), file.length());
+        }
+
+        boolean isSameSource(Key other) {
+            return kind.equals(other.kind) && path.equals(other.path) && qualifier.equals(other.qualifier);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return isSameSource(other) && lastModified == other.lastModified && length == other.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, path, qualifier, lastModified, length);
+        }
+    }
+}
@@ -3,7 +3,6 @@ package qaproject.util;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +29,18 @@ public class ExcelReader {
      * @throws IOException If file cannot be read
      */
     public static List<Map<String, String>> readSheet(String filePath, String sheetName) throws IOException {
+        return DataSnapshot.readThrough(filePath, sheetName, "sheet:" + sheetName, () -> parseSheet(filePath, sheetName));
+    }
+    
+    /**
+     * Parses all data from a specific sheet in an Excel file.
+     * 
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @return List of maps where each map represents a row with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    private static List<Map<String, String>> parseSheet(String filePath, String sheetName) throws IOException {
         List<Map<String, String>> data = new ArrayList<>();
         
         try (FileInputStream fis = new FileInputStream(filePath);
@@ -40,19 +51,8 @@ public class ExcelReader {
                 throw new IOException("Sheet '" + sheetName + "' not found in the workbook");
             }
             
-            // Get header row
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
-                throw new IOException("Header row not found in sheet '" + sheetName + "'");
-            }
-            
-            // Extract column headers
-            List<String> headers = new ArrayList<>();
-            Iterator<Cell> headerCellIterator = headerRow.cellIterator();
-            while (headerCellIterator.hasNext()) {
-                Cell cell = headerCellIterator.next();
-                headers.add(getCellValueAsString(cell));
-            }
+            List<String> headers = readHeaders(sheet, sheetName);
+            RowSchema schema = new RowSchema(headers);
             
             // Extract data rows
             Iterator<Row> rowIterator = sheet.rowIterator();
@@ -63,23 +63,37 @@ public class ExcelReader {
             
             while (rowIterator.hasNext()) {
                 Row row = rowIterator.next();
-                Map<String, String> rowData = new HashMap<>();
+                String[] rowValues = new String[headers.size()];
                 
                 for (int i = 0; i < headers.size(); i++) {
                     Cell cell = row.getCell(i, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-                    rowData.put(headers.get(i), getCellValueAsString(cell));
+                    rowValues[i] = getCellValueAsString(cell);
                 }
                 
-                data.add(rowData);
+                data.add(new DataRow(schema, rowValues));
             }
         }
         
         return data;
     }
     
+    /**
+     * Opens a sheet as a live data source that is re-read whenever the workbook changes.
+     * 
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @return Live data source; close it to stop watching the file
+     * @throws IOException If file cannot be read
+     */
+    public static LiveDataSource watchSheet(String filePath, String sheetName) throws IOException {
+        // A saved workbook is a rewritten zip archive, so there is nothing to append to
+        return new LiveDataSource(filePath, () -> readSheet(filePath, sheetName), null);
+    }
+    
     /**
      * Reads data from a specific sheet in an Excel file and returns it as a two-dimensional array.
-     * Suitable for use with TestNG DataProvider.
+     * Suitable for use with TestNG DataProvider. Only the rows of the shard configured
+     * through system properties are returned; see {@link DataShard#current()}.
      * 
      * @param filePath Path to the Excel file
      * @param sheetName Name of the sheet to read
@@ -87,7 +101,20 @@ public class ExcelReader {
      * @throws IOException If file cannot be read
      */
     public static Object[][] readSheetAsDataProvider(String filePath, String sheetName) throws IOException {
-        List<Map<String, String>> sheetData = readSheet(filePath, sheetName);
+        return readSheetAsDataProvider(filePath, sheetName, DataShard.current());
+    }
+    
+    /**
+     * Reads the rows of one shard of a sheet and returns them as a two-dimensional array.
+     * 
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @param shard Shard of the rows to return
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readSheetAsDataProvider(String filePath, String sheetName, DataShard shard) throws IOException {
+        List<Map<String, String>> sheetData = shard.select(readSheet(filePath, sheetName));
         Object[][] data = new Object[sheetData.size()][1];
         
         for (int i = 0; i < sheetData.size(); i++) {
@@ -99,7 +126,27 @@ public class ExcelReader {
     
     /**
      * Reads data from a specific sheet in an Excel file and returns it as a two-dimensional array
-     * with specific columns only.
+     * of typed records. Column positions are resolved once, and each row is converted by the
+     * factory without reflection or map lookups. Only the rows of the shard configured through
+     * system properties are converted; see {@link DataShard#current()}.
+     * 
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @param factory Converter from row values to records, usually generated by {@link RecordGenerator}
+     * @param <T> Record type
+     * @return Two-dimensional Object array where each inner array holds one record
+     * @throws IOException If file cannot be read, a column is missing or a value cannot be converted
+     */
+    public static <T> Object[][] readSheetAsDataProvider(String filePath, String sheetName, RecordFactory<T> factory)
+            throws IOException {
+        return CSVReader.toRecords(DataShard.current().select(readSheet(filePath, sheetName)), factory);
+    }
+    
+    /**
+     * Reads data from a specific sheet in an Excel file and returns it as a two-dimensional array
+     * with specific columns only. Only the cells of the requested columns are read and converted.
+     * Only the rows of the shard configured through system properties are returned; with a shard
+     * configured, its rows are read in full so that hash shards see every value.
      * 
      * @param filePath Path to the Excel file
      * @param sheetName Name of the sheet to read
@@ -108,17 +155,77 @@ public class ExcelReader {
      * @throws IOException If file cannot be read
      */
     public static Object[][] readSheetAsDataProvider(String filePath, String sheetName, String[] columns) throws IOException {
-        List<Map<String, String>> sheetData = readSheet(filePath, sheetName);
-        Object[][] data = new Object[sheetData.size()][columns.length];
+        DataShard shard = DataShard.current();
+        List<Map<String, String>> snapshot = DataSnapshot.loadIfFresh(filePath, sheetName, "sheet:" + sheetName);
+        if (snapshot != null) {
+            return CSVReader.project(shard.select(snapshot), columns);
+        }
+        if (!shard.isAll()) {
+            return CSVReader.project(shard.select(readSheet(filePath, sheetName)), columns);
+        }
         
-        for (int i = 0; i < sheetData.size(); i++) {
-            Map<String, String> row = sheetData.get(i);
+        List<Object[]> data = new ArrayList<>();
+        
+        try (FileInputStream fis = new FileInputStream(filePath);
+             XSSFWorkbook workbook = new XSSFWorkbook(fis)) {
+            
+            XSSFSheet sheet = workbook.getSheet(sheetName);
+            if (sheet == null) {
+                throw new IOException("Sheet '" + sheetName + "' not found in the workbook");
+            }
+            
+            // Resolve requested columns to cell positions once
+            RowSchema schema = new RowSchema(readHeaders(sheet, sheetName));
+            int[] columnIndexes = new int[columns.length];
             for (int j = 0; j < columns.length; j++) {
-                data[i][j] = row.get(columns[j]);
+                columnIndexes[j] = schema.indexOf(columns[j]);
+            }
+            
+            Iterator<Row> rowIterator = sheet.rowIterator();
+            // Skip header row
+            if (rowIterator.hasNext()) {
+                rowIterator.next();
+            }
+            
+            while (rowIterator.hasNext()) {
+                Row row = rowIterator.next();
+                Object[] values = new Object[columns.length];
+                
+                for (int j = 0; j < columnIndexes.length; j++) {
+                    if (columnIndexes[j] >= 0) {
+                        Cell cell = row.getCell(columnIndexes[j], Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
+                        values[j] = getCellValueAsString(cell);
+                    }
+                }
+                
+                data.add(values);
             }
         }
         
-        return data;
+        return data.toArray(new Object[0][]);
+    }
+    
+    /**
+     * Reads the column headers from the first row of a sheet.
+     * 
+     * @param sheet The sheet to read
+     * @param sheetName Name of the sheet, used in error messages
+     * @return Column headers in sheet order
+     * @throws IOException If the header row is missing
+     */
+    private static List<String> readHeaders(XSSFSheet sheet, String sheetName) throws IOException {
+        Row headerRow = sheet.getRow(0);
+        if (headerRow == null) {
+            throw new IOException("Header row not found in sheet '" + sheetName + "'");
+        }
+        
+        List<String> headers = new ArrayList<>();
+        Iterator<Cell> headerCellIterator = headerRow.cellIterator();
+        while (headerCellIterator.hasNext()) {
+            Cell cell = headerCellIterator.next();
+            headers.add(getCellValueAsString(cell));
+        }
+        return headers;
     }
     
     /**
@@ -136,12 +243,7 @@ public class ExcelReader {
             case STRING:
                 return cell.getStringCellValue();
             case NUMERIC:
-                // Check if the numeric value is an integer
-                double numericValue = cell.getNumericCellValue();
-                if (numericValue == Math.floor(numericValue)) {
-                    return String.valueOf((int) numericValue);
-                }
-                return String.valueOf(numericValue);
+                return formatNumericValue(cell.getNumericCellValue());
             case BOOLEAN:
                 return String.valueOf(cell.getBooleanCellValue());
             case FORMULA:
@@ -158,4 +260,20 @@ public class ExcelReader {
                 return "";
         }
     }
+    
+    /**
+     * Converts a numeric cell value to string, dropping the decimal part for whole numbers.
+     * Whole numbers are formatted as a {@code long}, so values beyond the {@code int} range keep their digits.
+     * 
+     * @param numericValue The numeric value of the cell
+     * @return String representation of the value
+     */
+    static String formatNumericValue(double numericValue) {
+        // Check if the numeric value is an integer that fits in a long
+        if (numericValue == Math.floor(numericValue)
+                && numericValue >= Long.MIN_VALUE && numericValue < Long.MAX_VALUE) {
+            return String.valueOf((long) numericValue);
+        }
+        return String.valueOf(numericValue);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,279 @@
+package qaproject.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Data source that follows its file while the suite runs.
+ * A shared {@link WatchService} thread notices when the file changes and reloads it in the
+ * background; the new rows are then swapped in atomically, so later DataProvider calls see
+ * fresh data without restarting the suite. When rows have only been appended to a CSV file,
+ * just the appended bytes are parsed; any other change parses the whole file again.
+ *
+ * <p>Instances are created through {@link CSVReader#watchCSV(String, String)} and
+ * {@link ExcelReader#watchSheet(String, String)}.</p>
+ */
+public class LiveDataSource implements Closeable {
+
+    /**
+     * Parses the records in a byte range of the file with an already known schema.
+     */
+    interface Appender {
+        List<Map<String, String>> readRows(RowSchema schema, long start, long end) throws IOException;
+    }
+
+    private final Path path;
+    private final DataSnapshot.Loader loader;
+    private final Appender appender;
+    private volatile State state;
+    private volatile boolean closed;
+
+    LiveDataSource(String filePath, DataSnapshot.Loader loader, Appender appender) throws IOException {
+        this.path = Paths.get(filePath).toAbsolutePath().normalize();
+        this.loader = loader;
+        this.appender = appender;
+        this.state = loadAll();
+        Watcher.register(this);
+    }
+
+    /**
+     * Returns the rows of the latest successfully parsed version of the file.
+     *
+     * @return Unmodifiable list of rows with column headers as keys
+     */
+    public List<Map<String, String>> getRows() {
+        return state.rows;
+    }
+
+    /**
+     * Returns the latest rows as a two-dimensional array for a TestNG DataProvider.
+     * Only the rows of the shard configured through system properties are returned;
+     * see {@link DataShard#current()}.
+     *
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     */
+    public Object[][] readAsDataProvider() {
+        List<Map<String, String>> rows = DataShard.current().select(state.rows);
+        Object[][] data = new Object[rows.size()][1];
+
+        for (int i = 0; i < rows.size(); i++) {
+            data[i][0] = rows.get(i);
+        }
+
+        return data;
+    }
+
+    /**
+     * Brings the rows up to date with the file right away instead of waiting for the watcher.
+     * Does nothing if the file has not changed since it was last read.
+     *
+     * @throws IOException If the file cannot be read; the previous rows are kept
+     */
+    public synchronized void reload() throws IOException {
+        State current = state;
+        long length = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        if (length == current.length && lastModified == current.lastModified) {
+            return;
+        }
+
+        State next = null;
+        // A partly written last line would be parsed as a short row, so it forces a full parse
+        if (current.appendOffset >= 0 && length > current.appendOffset && endsWithNewline(length)
+                && checksum(current.appendOffset) == current.prefixChecksum) {
+            // Everything read before is unchanged, so only the appended records are new
+            RowSchema schema = ((DataRow) current.rows.get(0)).getSchema();
+            List<Map<String, String>> rows = new ArrayList<>(current.rows);
+            rows.addAll(appender.readRows(schema, current.appendOffset, length));
+            next = newState(rows, length, lastModified);
+        }
+        if (next == null) {
+            next = loadAll();
+        }
+        state = next;
+    }
+
+    /**
+     * Stops watching the file. The last rows stay readable.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Watcher.unregister(this);
+    }
+
+    private State loadAll() throws IOException {
+        long length = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        return newState(loader.load(), length, lastModified);
+    }
+
+    /**
+     * Builds the state for rows parsed from a file of the given size and modification time.
+     * Appending is only trusted when the file still has that size and ends with a complete line.
+     */
+    private State newState(List<Map<String, String>> rows, long length, long lastModified) throws IOException {
+        State next = new State(Collections.unmodifiableList(rows), length, lastModified);
+        if (appender != null && !rows.isEmpty() && rows.get(0) instanceof DataRow
+                && Files.size(path) == length && endsWithNewline(length)) {
+            next.appendOffset = length;
+            next.prefixChecksum = checksum(length);
+        }
+        return next;
+    }
+
+    private boolean endsWithNewline(long length) throws IOException {
+        if (length == 0) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            return channel.read(last, length - 1) == 1 && last.get(0) == '\n';
+        }
+    }
+
+    /**
+     * Checksums the first {@code length} bytes of the file. Reading the prefix costs far less
+     * than parsing it, and it proves that earlier rows were not edited.
+     */
+    private long checksum(long length) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[65536];
+        long remaining = length;
+        try (InputStream in = Files.newInputStream(path)) {
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    return -1;
+                }
+                crc.update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * One parsed version of the file. Published through the volatile {@code state} field
+     * and never changed afterwards.
+     */
+    private static final class State {
+        final List<Map<String, String>> rows;
+        final long length;
+        final long lastModified;
+        long appendOffset = -1;
+        long prefixChecksum;
+
+        State(List<Map<String, String>> rows, long length, long lastModified) {
+            this.rows = rows;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Shared daemon thread that watches the directories of all live data sources.
+     */
+    private static final class Watcher {
+
+        private static final Map<Path, Set<LiveDataSource>> SOURCES = new ConcurrentHashMap<>();
+        private static final Map<Path, WatchKey> KEYS = new ConcurrentHashMap<>();
+        private static WatchService service;
+
+        static synchronized void register(LiveDataSource source) throws IOException {
+            if (service == null) {
+                service = FileSystems.getDefault().newWatchService();
+                Thread thread = new Thread(Watcher::run, "data-source-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            Path directory = source.path.getParent();
+            if (!KEYS.containsKey(directory)) {
+                KEYS.put(directory, directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY));
+            }
+            SOURCES.computeIfAbsent(source.path, p -> ConcurrentHashMap.newKeySet()).add(source);
+        }
+
+        static synchronized void unregister(LiveDataSource source) {
+            Set<LiveDataSource> sources = SOURCES.get(source.path);
+            if (sources == null || !sources.remove(source) || !sources.isEmpty()) {
+                return;
+            }
+            SOURCES.remove(source.path);
+
+            Path directory = source.path.getParent();
+            for (Path watched : SOURCES.keySet()) {
+                if (watched.getParent().equals(directory)) {
+                    return;
+                }
+            }
+            WatchKey key = KEYS.remove(directory);
+            if (key != null) {
+                key.cancel();
+            }
+        }
+
+        private static void run() {
+            while (true) {
+                WatchKey key;
+                try {
+                    key = service.take();
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    return;
+                }
+
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        reloadAll(SOURCES.keySet());
+                    } else {
+                        reloadAll(Collections.singleton(directory.resolve((Path) event.context())));
+                    }
+                }
+                key.reset();
+            }
+        }
+
+        private static void reloadAll(Set<Path> paths) {
+            for (Path path : paths) {
+                Set<LiveDataSource> sources = SOURCES.get(path);
+                if (sources == null) {
+                    continue;
+                }
+                for (LiveDataSource source : sources) {
+                    if (source.closed) {
+                        continue;
+                    }
+                    try {
+                        source.reload();
+                    } catch (IOException | RuntimeException e) {
+                        // Often a save still in progress; the next event retries with the old rows still in place
+                        System.err.println("Could not reload data source " + path + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,610 @@
+package qaproject.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory-mapped CSV reader for very large data files.
+ * Scans the mapped bytes directly for delimiters, quotes and newlines and only records
+ * the position of each field; field values are decoded into strings the first time a
+ * test reads them. Produces the same row maps as {@link CSVReader}.
+ */
+public class MappedCSVReader {
+
+    private static final long MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Record-aligned shard boundaries by file, so that the shards of a file read in one JVM
+     * share a single scan.
+     */
+    private static final Map<String, ShardBoundaries> SHARD_BOUNDARIES = new ConcurrentHashMap<>();
+
+    /**
+     * Reads all data from a CSV file by memory-mapping it.
+     *
+     * @param filePath Path to the CSV file
+     * @param delimiter Single ASCII character used to separate values
+     * @return List of maps where each map represents a row with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    public static List<Map<String, String>> readCSV(String filePath, String delimiter) throws IOException {
+        return readCSV(filePath, delimiter, MAX_WINDOW_SIZE);
+    }
+
+    /**
+     * Reads all data from a CSV file by memory-mapping it, using comma as the default delimiter.
+     *
+     * @param filePath Path to the CSV file
+     * @return List of maps where each map represents a row with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    public static List<Map<String, String>> readCSV(String filePath) throws IOException {
+        return readCSV(filePath, ",");
+    }
+
+    /**
+     * Reads data from a memory-mapped CSV file and returns it as a two-dimensional array.
+     * Suitable for use with TestNG DataProvider. Only the rows of the shard configured
+     * through system properties are returned; see {@link #readCSV(String, String, DataShard)}.
+     *
+     * @param filePath Path to the CSV file
+     * @param delimiter Single ASCII character used to separate values
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readCSVAsDataProvider(String filePath, String delimiter) throws IOException {
+        List<Map<String, String>> csvData = readCSV(filePath, delimiter, DataShard.current());
+        Object[][] data = new Object[csvData.size()][1];
+
+        for (int i = 0; i < csvData.size(); i++) {
+            data[i][0] = csvData.get(i);
+        }
+
+        return data;
+    }
+
+    /**
+     * Reads data from a memory-mapped CSV file and returns it as a two-dimensional array
+     * with specific columns only. Only the requested fields are ever decoded, and only the
+     * rows of the shard configured through system properties are returned.
+     *
+     * @param filePath Path to the CSV file
+     * @param delimiter Single ASCII character used to separate values
+     * @param columns Array of column names to include
+     * @return Two-dimensional Object array where each inner array contains values for specified columns
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readCSVAsDataProvider(String filePath, String delimiter, String[] columns) throws IOException {
+        List<Map<String, String>> csvData = readCSV(filePath, delimiter, DataShard.current());
+        Object[][] data = new Object[csvData.size()][columns.length];
+
+        for (int i = 0; i < csvData.size(); i++) {
+            Map<String, String> row = csvData.get(i);
+            for (int j = 0; j < columns.length; j++) {
+                data[i][j] = row.get(columns[j]);
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Reads the file through mapped windows of at most {@code windowSize} bytes.
+     * Files larger than a single mapping are handled by remapping from the start
+     * of the record that crosses the end of the current window.
+     */
+    static List<Map<String, String>> readCSV(String filePath, String delimiter, long windowSize) throws IOException {
+        byte delimiterByte = toDelimiterByte(delimiter);
+        List<Map<String, String>> data = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            readRange(channel, 0, channel.size(), windowSize, delimiterByte, null, data);
+        }
+
+        return data;
+    }
+
+    /**
+     * Reads one shard of a CSV file. Round-robin and hash shards hold the same rows as with the
+     * other readers. The whole file is scanned for them; round-robin shards only decode the fields
+     * of their own rows, while hash shards decode every row to hash it.
+     *
+     * <p>A {@link DataShard.Mode#RANGE range} shard memory-maps only its part of the file.
+     * The data section is cut into {@code shard.getCount()} byte ranges of about equal size,
+     * each moved forward to the next record boundary, so every row belongs to exactly one shard
+     * and a shard never maps or decodes the other shards' records. Finding the boundaries scans the
+     * data section once for quotes and newlines, which is much cheaper than parsing it; shards of the
+     * same file read in one JVM reuse that scan. Separate JVMs each scan the file once.</p>
+     *
+     * @param filePath Path to the CSV file
+     * @param delimiter Single ASCII character used to separate values
+     * @param shard Shard of the file to read
+     * @return List of maps where each map represents a row of the shard
+     * @throws IOException If file cannot be read
+     */
+    public static List<Map<String, String>> readCSV(String filePath, String delimiter, DataShard shard) throws IOException {
+        if (shard.isAll()) {
+            return readCSV(filePath, delimiter);
+        }
+        if (shard.getMode() != DataShard.Mode.RANGE) {
+            return shard.select(readCSV(filePath, delimiter));
+        }
+
+        byte delimiterByte = toDelimiterByte(delimiter);
+        List<Map<String, String>> data = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long headerWindow = Math.min(fileSize, MAX_WINDOW_SIZE);
+            RecordScanner headerScanner = map(channel, 0, fileSize, headerWindow, delimiterByte);
+            headerScanner.skipByteOrderMark();
+            int headerResult = headerScanner.next();
+            if (headerResult == RecordScanner.END) {
+                throw new IOException("CSV file is empty");
+            }
+            if (headerResult == RecordScanner.INCOMPLETE) {
+                throw new IOException("CSV header exceeds the mapping window");
+            }
+            RowSchema header = new RowSchema(headerScanner.decodeAll());
+            long dataStart = headerScanner.pos;
+
+            long[] boundaries = shardBoundaries(filePath, channel, dataStart, fileSize, shard.getCount(), delimiterByte);
+            readRange(channel, boundaries[shard.getIndex()], boundaries[shard.getIndex() + 1], MAX_WINDOW_SIZE,
+                    delimiterByte, header, data);
+        }
+
+        return data;
+    }
+
+    /**
+     * Scans the records between two record boundaries through mapped windows.
+     *
+     * @param header Schema of the rows, or null to take it from the first record
+     * @param data List the rows are added to
+     */
+    private static void readRange(FileChannel channel, long start, long end, long windowSize, byte delimiter,
+            RowSchema header, List<Map<String, String>> data) throws IOException {
+        long windowStart = start;
+        RecordScanner scanner = map(channel, windowStart, end, windowSize, delimiter);
+        if (header == null) {
+            scanner.skipByteOrderMark();
+        }
+
+        while (true) {
+            int recordStart = scanner.pos;
+            int result = scanner.next();
+
+            if (result == RecordScanner.END) {
+                break;
+            }
+            if (result == RecordScanner.INCOMPLETE) {
+                if (recordStart == 0) {
+                    throw new IOException("CSV record at offset " + windowStart + " exceeds the mapping window");
+                }
+                windowStart += recordStart;
+                scanner = map(channel, windowStart, end, windowSize, delimiter);
+                continue;
+            }
+
+            if (header == null) {
+                header = new RowSchema(scanner.decodeAll());
+            } else if (!scanner.isBlankRecord()) {
+                data.add(new MappedRow(header, scanner.buffer, scanner.copyBounds()));
+            }
+        }
+
+        if (header == null) {
+            throw new IOException("CSV file is empty");
+        }
+    }
+
+    /**
+     * Returns the boundaries of all shards of a file, scanning it only if the file changed since
+     * the boundaries were last computed for this shard count.
+     */
+    private static long[] shardBoundaries(String filePath, FileChannel channel, long dataStart, long fileSize,
+            int count, byte delimiter) throws IOException {
+        String key = new File(filePath).getAbsolutePath();
+        long lastModified = new File(filePath).lastModified();
+        ShardBoundaries cached = SHARD_BOUNDARIES.get(key);
+        if (cached != null && cached.matches(fileSize, lastModified, count, delimiter)) {
+            return cached.offsets;
+        }
+
+        long[] offsets = findRecordBoundaries(channel, dataStart, fileSize, count, delimiter);
+        SHARD_BOUNDARIES.put(key, new ShardBoundaries(fileSize, lastModified, delimiter, offsets));
+        return offsets;
+    }
+
+    /**
+     * Cuts the data section into {@code count} ranges of about equal size in a single pass. Each cut
+     * moves forward to the start of the first record after the first record terminator at or after it,
+     * so neighbouring ranges never overlap or leave a gap. Records are followed with a
+     * {@link BoundaryTracker}, so quotes inside unquoted fields and {@code \r} line ends are handled
+     * as the parser handles them.
+     *
+     * @param dataStart Offset of the first data record
+     * @return {@code count + 1} ascending offsets, starting at {@code dataStart} and ending at {@code fileSize}
+     */
+    static long[] findRecordBoundaries(FileChannel channel, long dataStart, long fileSize, int count, byte delimiter)
+            throws IOException {
+        long length = fileSize - dataStart;
+        long[] offsets = new long[count + 1];
+        offsets[0] = dataStart;
+        offsets[count] = fileSize;
+
+        int next = 1;
+        while (next < count && length * next / count == 0) {
+            offsets[next++] = dataStart;
+        }
+
+        BoundaryTracker tracker = new BoundaryTracker(delimiter, BoundaryTracker.FIELD_START);
+        long position = dataStart;
+        while (next < count && position < fileSize) {
+            long windowLength = Math.min(fileSize - position, MAX_WINDOW_SIZE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+            for (int i = 0; i < windowLength && next < count; i++) {
+                long recordStart = tracker.next(buffer.get(i), position + i);
+                if (recordStart >= 0) {
+                    next = cutAt(offsets, next, dataStart, length, recordStart);
+                }
+            }
+            position += windowLength;
+        }
+
+        while (next < count) {
+            offsets[next++] = fileSize;
+        }
+        return offsets;
+    }
+
+    /**
+     * Moves every pending cut that lies before a record start to that record.
+     *
+     * @return Index of the first cut still pending
+     */
+    private static int cutAt(long[] offsets, int next, long dataStart, long length, long recordStart) {
+        int count = offsets.length - 1;
+        while (next < count && recordStart > dataStart + length * next / count) {
+            offsets[next++] = recordStart;
+        }
+        return next;
+    }
+
+    private static RecordScanner map(FileChannel channel, long windowStart, long fileSize, long windowSize,
+            byte delimiter) throws IOException {
+        long length = Math.min(fileSize - windowStart, windowSize);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+        return new RecordScanner(buffer, (int) length, windowStart + length == fileSize, delimiter);
+    }
+
+    static byte toDelimiterByte(String delimiter) {
+        if (delimiter == null || delimiter.length() != 1 || delimiter.charAt(0) > 0x7F) {
+            throw new IllegalArgumentException("Memory-mapped CSV parsing requires a single ASCII delimiter: " + delimiter);
+        }
+        return (byte) delimiter.charAt(0);
+    }
+
+    /**
+     * Decodes the bytes between two absolute buffer positions as UTF-8.
+     */
+    static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a field from its recorded bounds, applying the same trimming and
+     * quote handling as {@link CSVReader}. Quoted fields are stored with an
+     * inverted start offset.
+     */
+    static String decodeField(ByteBuffer buffer, int start, int end) {
+        if (start < 0) {
+            String raw = decode(buffer, ~start, end);
+            return raw.replace("\"\"", "\"").trim();
+        }
+
+        // Trim ASCII whitespace before decoding to avoid a second copy
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        return decode(buffer, start, end);
+    }
+
+    /**
+     * Byte-level scanner that walks one record at a time through a mapped window
+     * and records the start and end offset of each field.
+     */
+    static class RecordScanner {
+
+        static final int RECORD = 0;
+        static final int END = 1;
+        static final int INCOMPLETE = 2;
+
+        final ByteBuffer buffer;
+        final int limit;
+        final boolean atEof;
+        final byte delimiter;
+        int pos;
+        int[] bounds = new int[32];
+        int fieldCount;
+
+        RecordScanner(ByteBuffer buffer, int limit, boolean atEof, byte delimiter) {
+            this.buffer = buffer;
+            this.limit = limit;
+            this.atEof = atEof;
+            this.delimiter = delimiter;
+        }
+
+        /**
+         * Scans the next record starting at {@link #pos}.
+         *
+         * @return {@link #RECORD} when a record was read, {@link #END} at end of input,
+         *         or {@link #INCOMPLETE} when the record runs past the end of the window
+         */
+        int next() {
+            if (pos >= limit) {
+                return atEof ? END : INCOMPLETE;
+            }
+            fieldCount = 0;
+
+            while (true) {
+                int start = pos;
+
+                if (pos < limit && buffer.get(pos) == '"') {
+                    int contentStart = ++pos;
+                    while (true) {
+                        if (pos >= limit) {
+                            if (!atEof) {
+                                return INCOMPLETE;
+                            }
+                            // Unterminated quote: take the rest of the file
+                            break;
+                        }
+                        if (buffer.get(pos) == '"') {
+                            if (pos + 1 < limit && buffer.get(pos + 1) == '"') {
+                                pos += 2;
+                                continue;
+                            }
+                            if (pos + 1 >= limit && !atEof) {
+                                return INCOMPLETE;
+                            }
+                            break;
+                        }
+                        pos++;
+                    }
+                    int contentEnd = pos;
+                    if (pos < limit) {
+                        pos++;
+                    }
+                    // Ignore anything between the closing quote and the next separator
+                    while (pos < limit && !isSeparator(buffer.get(pos))) {
+                        pos++;
+                    }
+                    addField(~contentStart, contentEnd);
+                } else {
+                    while (pos < limit && !isSeparator(buffer.get(pos))) {
+                        pos++;
+                    }
+                    addField(start, pos);
+                }
+
+                if (pos >= limit) {
+                    return atEof ? RECORD : INCOMPLETE;
+                }
+
+                byte b = buffer.get(pos);
+                if (b == delimiter) {
+                    pos++;
+                    continue;
+                }
+
+                pos++;
+                if (b == '\r') {
+                    if (pos < limit) {
+                        if (buffer.get(pos) == '\n') {
+                            pos++;
+                        }
+                    } else if (!atEof) {
+                        return INCOMPLETE;
+                    }
+                }
+                return RECORD;
+            }
+        }
+
+        /**
+         * Moves past a UTF-8 byte order mark at the start of the window, as {@link CSVParser} does
+         * for the decoded text, so the first header name is the same for every reader.
+         */
+        void skipByteOrderMark() {
+            if (pos == 0 && limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+                    && buffer.get(2) == (byte) 0xBF) {
+                pos = 3;
+            }
+        }
+
+        private boolean isSeparator(byte b) {
+            return b == delimiter || b == '\n' || b == '\r';
+        }
+
+        private void addField(int start, int end) {
+            int index = fieldCount * 2;
+            if (index + 2 > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[index] = start;
+            bounds[index + 1] = end;
+            fieldCount++;
+        }
+
+        /**
+         * Returns true when the last record contained nothing but whitespace.
+         */
+        boolean isBlankRecord() {
+            if (fieldCount != 1 || bounds[0] < 0) {
+                return false;
+            }
+            for (int i = bounds[0]; i < bounds[1]; i++) {
+                if ((buffer.get(i) & 0xFF) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int[] copyBounds() {
+            return Arrays.copyOf(bounds, fieldCount * 2);
+        }
+
+        String[] decodeAll() {
+            String[] values = new String[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                values[i] = decodeField(buffer, bounds[i * 2], bounds[i * 2 + 1]);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Read-only row view over a mapped window. Each field is decoded on first access
+     * and cached for subsequent reads.
+     */
+    static class MappedRow extends DataRow {
+
+        private final ByteBuffer buffer;
+        private final int[] bounds;
+        private String[] decoded;
+
+        MappedRow(RowSchema schema, ByteBuffer buffer, int[] bounds) {
+            super(schema);
+            this.buffer = buffer;
+            this.bounds = bounds;
+        }
+
+        @Override
+        String value(int column) {
+            if (column * 2 >= bounds.length) {
+                return ""; // Empty value for missing columns
+            }
+            if (decoded == null) {
+                decoded = new String[bounds.length / 2];
+            }
+            String value = decoded[column];
+            if (value == null) {
+                value = decodeField(buffer, bounds[column * 2], bounds[column * 2 + 1]);
+                decoded[column] = value;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Follows record boundaries one byte at a time with the same rules as {@link RecordScanner},
+     * without parsing fields: a quote only opens a quoted field at the start of a field, a doubled
+     * quote inside one is an escaped quote, and {@code \n}, {@code \r} and {@code \r\n} all end a record.
+     */
+    static final class BoundaryTracker {
+
+        static final int FIELD_START = 0;
+        static final int UNQUOTED = 1;
+        static final int QUOTED = 2;
+        static final int QUOTE_IN_QUOTED = 3;
+
+        private final byte delimiter;
+        int state;
+        boolean afterCarriageReturn;
+
+        BoundaryTracker(byte delimiter, int state) {
+            this.delimiter = delimiter;
+            this.state = state;
+        }
+
+        /**
+         * Consumes one byte.
+         *
+         * @param b Byte at the offset
+         * @param offset Offset of the byte in the file
+         * @return Offset of a record that starts at or right after this byte, or -1
+         */
+        long next(byte b, long offset) {
+            long recordStart = -1;
+            if (afterCarriageReturn) {
+                // The record ended with \r; the next one starts after an optional \n
+                afterCarriageReturn = false;
+                if (b == '\n') {
+                    return offset + 1;
+                }
+                recordStart = offset;
+            }
+
+            if (state == QUOTE_IN_QUOTED) {
+                if (b == '"') {
+                    state = QUOTED;
+                    return recordStart;
+                }
+                // Closing quote; anything up to the next separator is ignored
+                state = UNQUOTED;
+            }
+
+            if (state == QUOTED) {
+                if (b == '"') {
+                    state = QUOTE_IN_QUOTED;
+                }
+            } else if (b == delimiter) {
+                state = FIELD_START;
+            } else if (b == '\n') {
+                state = FIELD_START;
+                return offset + 1;
+            } else if (b == '\r') {
+                state = FIELD_START;
+                afterCarriageReturn = true;
+            } else if (state == FIELD_START && b == '"') {
+                state = QUOTED;
+            } else {
+                state = UNQUOTED;
+            }
+            return recordStart;
+        }
+    }
+
+    /**
+     * Shard boundaries computed for one version of a file.
+     */
+    private static final class ShardBoundaries {
+
+        private final long fileSize;
+        private final long lastModified;
+        private final byte delimiter;
+        private final long[] offsets;
+
+        ShardBoundaries(long fileSize, long lastModified, byte delimiter, long[] offsets) {
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.delimiter = delimiter;
+            this.offsets = offsets;
+        }
+
+        boolean matches(long fileSize, long lastModified, int count, byte delimiter) {
+            return this.fileSize == fileSize && this.lastModified == lastModified && offsets.length == count + 1
+                    && this.delimiter == delimiter;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package qaproject.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel CSV reader that splits a file into byte ranges and parses them on a fork-join pool.
+ * Record boundaries are located with the parser's quoting rules, so quoted fields that contain
+ * newlines never get split between two chunks. Rows are returned in file order.
+ */
+public class ParallelCSVReader {
+
+    private static final long SEQUENTIAL_THRESHOLD = 4L * 1024 * 1024;
+    private static final long MIN_RANGE_SIZE = 1024L * 1024;
+    private static final long MAX_RANGE_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * Reads all data from a CSV file using every available core of the common fork-join pool.
+     *
+     * @param filePath Path to the CSV file
+     * @param delimiter Single ASCII character used to separate values
+     * @return List of maps where each map represents a row with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    public static List<Map<String, String>> readCSV(String filePath, String delimiter) throws IOException {
+        return readCSV(filePath, delimiter, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads all data from a CSV file using a dedicated pool with the given parallelism.
+     *
+     * @param filePath Path to the CSV file
+     * @param delimiter Single ASCII character used to separate values
+     * @param parallelism Number of worker threads to parse with
+     * @return List of maps where each map represents a row with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    public static List<Map<String, String>> readCSV(String filePath, String delimiter, int parallelism) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return readCSV(filePath, delimiter, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reads data from a CSV file in parallel and returns it as a two-dimensional array.
+     * Suitable for use with TestNG DataProvider. Only the rows of the shard configured
+     * through system properties are returned; see {@link DataShard#current()}.
+     *
+     * @param filePath Path to the CSV file
+     * @param delimiter Single ASCII character used to separate values
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readCSVAsDataProvider(String filePath, String delimiter) throws IOException {
+        List<Map<String, String>> csvData = DataShard.current().select(readCSV(filePath, delimiter));
+        Object[][] data = new Object[csvData.size()][1];
+
+        for (int i = 0; i < csvData.size(); i++) {
+            data[i][0] = csvData.get(i);
+        }
+
+        return data;
+    }
+
+    private static List<Map<String, String>> readCSV(String filePath, String delimiter, ForkJoinPool pool) throws IOException {
+        byte delimiterByte = MappedCSVReader.toDelimiterByte(delimiter);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < SEQUENTIAL_THRESHOLD) {
+                return MappedCSVReader.readCSV(filePath, delimiter);
+            }
+
+            // Header is always parsed on the calling thread
+            long headerWindow = Math.min(fileSize, Integer.MAX_VALUE);
+            MappedByteBuffer headerBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerWindow);
+            MappedCSVReader.RecordScanner headerScanner = new MappedCSVReader.RecordScanner(
+                    headerBuffer, (int) headerWindow, headerWindow == fileSize, delimiterByte);
+            headerScanner.skipByteOrderMark();
+            int headerResult = headerScanner.next();
+            if (headerResult == MappedCSVReader.RecordScanner.END) {
+                throw new IOException("CSV file is empty");
+            }
+            if (headerResult == MappedCSVReader.RecordScanner.INCOMPLETE) {
+                throw new IOException("CSV header exceeds the mapping window");
+            }
+            RowSchema header = new RowSchema(headerScanner.decodeAll());
+            long dataStart = headerScanner.pos;
+
+            long[] boundaries = findRecordBoundaries(channel, dataStart, fileSize, delimiterByte, pool);
+
+            List<ForkJoinTask<List<Map<String, String>>>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                final long start = boundaries[i];
+                final long end = boundaries[i + 1];
+                tasks.add(pool.submit(() -> parseChunk(channel, start, end, header, delimiterByte)));
+            }
+
+            List<Map<String, String>> data = new ArrayList<>();
+            for (ForkJoinTask<List<Map<String, String>>> task : tasks) {
+                data.addAll(await(task));
+            }
+            return data;
+        }
+    }
+
+    /**
+     * Splits the data section into ranges and moves each range start forward to the first record
+     * that begins in it. Ranges are scanned in parallel with a {@link MappedCSVReader.BoundaryTracker}
+     * twice over, once as if the range started outside a quoted field and once as if it started
+     * inside one; chaining the end states from the first range then picks the right scan for each
+     * range. No range starts on a quote, so every state outside a quoted field scans alike.
+     *
+     * @return Ascending record-aligned offsets, starting at {@code dataStart} and ending at {@code fileSize}
+     */
+    private static long[] findRecordBoundaries(FileChannel channel, long dataStart, long fileSize, byte delimiter,
+            ForkJoinPool pool) throws IOException {
+        long length = fileSize - dataStart;
+        long rangeSize = length / (pool.getParallelism() * 4L);
+        rangeSize = Math.max(MIN_RANGE_SIZE, Math.min(MAX_RANGE_SIZE, rangeSize));
+        int rangeCount = (int) ((length + rangeSize - 1) / rangeSize);
+
+        long[] starts = new long[rangeCount + 1];
+        starts[0] = dataStart;
+        starts[rangeCount] = fileSize;
+        ByteBuffer one = ByteBuffer.allocate(1);
+        for (int i = 1; i < rangeCount; i++) {
+            long start = Math.max(dataStart + i * rangeSize, starts[i - 1]);
+            while (start < fileSize && byteAt(channel, start, one) == '"') {
+                start++;
+            }
+            starts[i] = start;
+        }
+
+        List<ForkJoinTask<RangeScan>> scans = new ArrayList<>();
+        for (int i = 0; i < rangeCount; i++) {
+            final long start = starts[i];
+            final long end = starts[i + 1];
+            final boolean firstRange = i == 0;
+            scans.add(pool.submit(() -> scanRange(channel, start, end, delimiter, firstRange)));
+        }
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(dataStart);
+        int state = MappedCSVReader.BoundaryTracker.FIELD_START;
+        boolean afterCarriageReturn = false;
+
+        for (int i = 0; i < rangeCount; i++) {
+            RangeScan scan = await(scans.get(i));
+            boolean inQuotes = i > 0 && state == MappedCSVReader.BoundaryTracker.QUOTED;
+            // Range 0 already starts on a record boundary; a range right after a \r starts a record
+            // too, since a \n it may start with is parsed as a blank record
+            if (i > 0) {
+                long boundary = afterCarriageReturn ? starts[i]
+                        : inQuotes ? scan.firstRecordInside : scan.firstRecordOutside;
+                if (boundary >= 0 && boundary < fileSize) {
+                    boundaries.add(boundary);
+                }
+            }
+            MappedCSVReader.BoundaryTracker end = inQuotes ? scan.inside : scan.outside;
+            state = end.state;
+            afterCarriageReturn = end.afterCarriageReturn;
+        }
+
+        boundaries.add(fileSize);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    private static RangeScan scanRange(FileChannel channel, long start, long end, byte delimiter, boolean firstRange)
+            throws IOException {
+        RangeScan scan = new RangeScan(new MappedCSVReader.BoundaryTracker(delimiter,
+                firstRange ? MappedCSVReader.BoundaryTracker.FIELD_START : MappedCSVReader.BoundaryTracker.UNQUOTED),
+                firstRange ? null : new MappedCSVReader.BoundaryTracker(delimiter, MappedCSVReader.BoundaryTracker.QUOTED));
+        if (end == start) {
+            return scan;
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int limit = (int) (end - start);
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            long recordStart = scan.outside.next(b, start + i);
+            if (recordStart >= 0 && scan.firstRecordOutside < 0) {
+                scan.firstRecordOutside = recordStart;
+            }
+            if (scan.inside != null) {
+                recordStart = scan.inside.next(b, start + i);
+                if (recordStart >= 0 && scan.firstRecordInside < 0) {
+                    scan.firstRecordInside = recordStart;
+                }
+            }
+        }
+        return scan;
+    }
+
+    private static byte byteAt(FileChannel channel, long position, ByteBuffer one) throws IOException {
+        one.clear();
+        if (channel.read(one, position) < 1) {
+            throw new IOException("CSV file ended while reading offset " + position);
+        }
+        return one.get(0);
+    }
+
+    private static List<Map<String, String>> parseChunk(FileChannel channel, long start, long end,
+            RowSchema header, byte delimiter) throws IOException {
+        List<Map<String, String>> rows = new ArrayList<>();
+        long length = end - start;
+        if (length == 0) {
+            return rows;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("CSV chunk at offset " + start + " exceeds the mapping window");
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        MappedCSVReader.RecordScanner scanner = new MappedCSVReader.RecordScanner(buffer, (int) length, true, delimiter);
+        while (scanner.next() == MappedCSVReader.RecordScanner.RECORD) {
+            if (!scanner.isBlankRecord()) {
+                rows.add(new MappedCSVReader.MappedRow(header, buffer, scanner.copyBounds()));
+            }
+        }
+        return rows;
+    }
+
+    private static <T> T await(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing CSV chunks", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to parse CSV chunk", cause);
+        }
+    }
+
+    /**
+     * Result of scanning one byte range from both quoting states.
+     */
+    private static class RangeScan {
+        final MappedCSVReader.BoundaryTracker outside;
+        final MappedCSVReader.BoundaryTracker inside;
+        long firstRecordOutside = -1;
+        long firstRecordInside = -1;
+
+        RangeScan(MappedCSVReader.BoundaryTracker outside, MappedCSVReader.BoundaryTracker inside) {
+            this.outside = outside;
+            this.inside = inside;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package qaproject.util;
+
+/**
+ * Reflection-free converter from the text values of a data row to a typed record.
+ * Implementations are normally generated by {@link RecordGenerator} from a data file's header,
+ * and are passed to the {@code readCSVAsDataProvider} and {@code readSheetAsDataProvider}
+ * overloads so that DataProviders return records instead of maps.
+ *
+ * <p>Readers check the header of the data source against {@link #columns()} before converting
+ * any row, and fail with an {@code IOException} naming the missing and unexpected columns.</p>
+ *
+ * @param <T> Record type
+ */
+public interface RecordFactory<T> {
+
+    /**
+     * Returns the names of the columns the record is built from.
+     * Readers resolve them to column positions once per data source.
+     *
+     * @return Column names in the order {@link #create(String[])} expects their values
+     */
+    String[] columns();
+
+    /**
+     * Returns whether the data source must have exactly the columns of {@link #columns()}.
+     * Generated factories return true, so that a file whose columns changed after the class was
+     * generated fails to load instead of silently leaving new columns out of the record.
+     *
+     * @return true if extra columns in the data source are an error; false if it only has to
+     *         contain the record's columns
+     */
+    default boolean requiresExactColumns() {
+        return false;
+    }
+
+    /**
+     * Creates a record from one row. The array is reused for the next row and must not be kept.
+     *
+     * @param values Row values in {@link #columns()} order
+     * @return New record
+     * @throws IllegalArgumentException If a value cannot be converted to its field type
+     */
+    T create(String[] values);
+}
@@ -0,0 +1,341 @@
+package qaproject.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Build-time generator of typed record classes for data files.
+ * Reads the header and rows of a CSV or Excel file, infers each column's type the same way as
+ * {@link TypedDataSet}, and writes an immutable class with one field per column and a nested
+ * {@link RecordFactory} that converts row values with plain {@code parse} calls.
+ *
+ * <p>Usage:</p>
+ * <pre>
+ * java qaproject.util.RecordGenerator &lt;data file&gt; &lt;fully qualified class name&gt; &lt;source dir&gt; [sheet name | delimiter]
+ * </pre>
+ * <p>For example, generating {@code qaproject.data.SearchData} from {@code search_data.csv} into
+ * {@code src/test/java} lets a DataProvider return
+ * {@code CSVReader.readCSVAsDataProvider(path, ",", SearchData.FACTORY)}.</p>
+ */
+public class RecordGenerator {
+
+    private static final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "false", "final", "finally",
+            "float", "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long",
+            "native", "new", "null", "package", "private", "protected", "public", "return", "short", "static",
+            "strictfp", "super", "switch", "synchronized", "this", "throw", "throws", "transient", "true", "try",
+            "void", "volatile", "while", "_"));
+
+    /**
+     * Generates a record class from a data file.
+     *
+     * @param args Data file, fully qualified class name, source directory and, optionally,
+     *             the sheet name for Excel files or the delimiter for CSV files
+     * @throws IOException If the data file cannot be read or the class cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: RecordGenerator <data file> <class name> <source dir> [sheet name | delimiter]");
+            System.exit(2);
+        }
+
+        File target = generate(args[0], args[1], new File(args[2]), args.length > 3 ? args[3] : null);
+        System.out.println("Generated " + target.getPath());
+    }
+
+    /**
+     * Generates a record class from a data file and writes it below a source directory.
+     *
+     * @param dataFile Path to the CSV or Excel (XLSX) file
+     * @param className Fully qualified name of the class to generate
+     * @param sourceDir Source root the class is written to, in its package directory
+     * @param option Sheet name for Excel files (required), or delimiter for CSV files (default comma)
+     * @return Generated source file
+     * @throws IOException If the data file cannot be read or the class cannot be written
+     */
+    public static File generate(String dataFile, String className, File sourceDir, String option) throws IOException {
+        List<Map<String, String>> rows;
+        if (dataFile.toLowerCase().endsWith(".xlsx")) {
+            if (option == null) {
+                throw new IOException("A sheet name is required for Excel file '" + dataFile + "'");
+            }
+            rows = StreamingExcelReader.readSheet(dataFile, option);
+        } else {
+            rows = CSVReader.readCSV(dataFile, option != null ? option : ",");
+        }
+        if (rows.isEmpty()) {
+            throw new IOException("Data file '" + dataFile + "' has no data rows to infer column types from");
+        }
+
+        String source = generateSource(className, new File(dataFile).getName(), TypedDataSet.of(rows));
+
+        File target = new File(sourceDir, className.replace('.', File.separatorChar) + ".java");
+        target.getParentFile().mkdirs();
+        Files.write(target.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        return target;
+    }
+
+    /**
+     * Builds the source code of a record class for the columns of a typed data set.
+     */
+    static String generateSource(String className, String dataFileName, TypedDataSet data) {
+        int dot = className.lastIndexOf('.');
+        String packageName = dot < 0 ? null : className.substring(0, dot);
+        String simpleName = className.substring(dot + 1);
+
+        List<String> columns = new ArrayList<>(data.getSchema().getColumnNames());
+        String[] fields = fieldNames(columns);
+        String[] types = new String[columns.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = javaType(data.getColumnType(columns.get(i)));
+        }
+
+        StringBuilder out = new StringBuilder();
+        if (packageName != null) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("import java.util.Objects;\n\n");
+        out.append("import qaproject.util.RecordFactory;\n\n");
+
+        out.append("/**\n");
+        out.append(" * Row of ").append(escapeComment(dataFileName)).append(".\n");
+        out.append(" * Generated by {@code qaproject.util.RecordGenerator}; regenerate instead of editing.\n");
+        out.append(" */\n");
+        out.append("public final class ").append(simpleName).append(" {\n\n");
+
+        // Factory
+        out.append("    /**\n");
+        out.append("     * Converts row values to records for the reader DataProvider methods.\n");
+        out.append("     */\n");
+        out.append("    public static final RecordFactory<").append(simpleName).append("> FACTORY = new RecordFactory<")
+                .append(simpleName).append(">() {\n");
+        out.append("        @Override\n");
+        out.append("        public String[] columns() {\n");
+        out.append("            return new String[] {");
+        for (int i = 0; i < columns.size(); i++) {
+            out.append(i == 0 ? " " : ", ").append(stringLiteral(columns.get(i)));
+        }
+        out.append(" };\n");
+        out.append("        }\n\n");
+        out.append("        @Override\n");
+        out.append("        public boolean requiresExactColumns() {\n");
+        out.append("            return true;\n");
+        out.append("        }\n\n");
+        out.append("        @Override\n");
+        out.append("        public ").append(simpleName).append(" create(String[] values) {\n");
+        out.append("            return new ").append(simpleName).append("(");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                out.append(",");
+            }
+            out.append("\n                    ").append(parseExpression(types[i], "values[" + i + "]"));
+        }
+        out.append(");\n");
+        out.append("        }\n");
+        out.append("    };\n\n");
+
+        // Fields
+        for (int i = 0; i < fields.length; i++) {
+            out.append("    private final ").append(types[i]).append(' ').append(fields[i]).append(";\n");
+        }
+        out.append('\n');
+
+        // Constructor
+        out.append("    public ").append(simpleName).append("(");
+        for (int i = 0; i < fields.length; i++) {
+            out.append(i == 0 ? "" : ", ").append(types[i]).append(' ').append(fields[i]);
+        }
+        out.append(") {\n");
+        for (String field : fields) {
+            out.append("        this.").append(field).append(" = ").append(field).append(";\n");
+        }
+        out.append("    }\n");
+
+        // Accessors
+        for (int i = 0; i < fields.length; i++) {
+            out.append('\n');
+            out.append("    /**\n");
+            out.append("     * @return Value of column ").append(escapeComment(columns.get(i))).append('\n');
+            out.append("     */\n");
+            out.append("    public ").append(types[i]).append(' ').append(getterName(fields[i])).append("() {\n");
+            out.append("        return ").append(fields[i]).append(";\n");
+            out.append("    }\n");
+        }
+
+        // equals, hashCode and toString
+        out.append('\n');
+        out.append("    @Override\n");
+        out.append("    public boolean equals(Object o) {\n");
+        out.append("        if (this == o) {\n");
+        out.append("            return true;\n");
+        out.append("        }\n");
+        out.append("        if (!(o instanceof ").append(simpleName).append(")) {\n");
+        out.append("            return false;\n");
+        out.append("        }\n");
+        out.append("        ").append(simpleName).append(" other = (").append(simpleName).append(") o;\n");
+        out.append("        return ");
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.append("\n                && ");
+            }
+            out.append(equalsExpression(types[i], fields[i]));
+        }
+        if (fields.length == 0) {
+            out.append("true");
+        }
+        out.append(";\n");
+        out.append("    }\n\n");
+
+        out.append("    @Override\n");
+        out.append("    public int hashCode() {\n");
+        out.append("        return Objects.hash(").append(String.join(", ", fields)).append(");\n");
+        out.append("    }\n\n");
+
+        // TestNG prints parameters with toString, so keep it readable in reports
+        out.append("    @Override\n");
+        out.append("    public String toString() {\n");
+        out.append("        return \"").append(simpleName).append("[\"");
+        for (int i = 0; i < fields.length; i++) {
+            out.append("\n                + \"").append(i == 0 ? "" : ", ").append(fields[i]).append("=\" + ")
+                    .append(fields[i]);
+        }
+        out.append("\n                + \"]\";\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        return out.toString();
+    }
+
+    /**
+     * Converts column names to distinct camel-case Java identifiers.
+     */
+    private static String[] fieldNames(List<String> columns) {
+        String[] names = new String[columns.size()];
+        Set<String> used = new HashSet<>();
+
+        for (int i = 0; i < names.length; i++) {
+            StringBuilder name = new StringBuilder();
+            boolean upperNext = false;
+            for (char c : columns.get(i).toCharArray()) {
+                if (Character.isLetterOrDigit(c)) {
+                    if (name.length() == 0) {
+                        name.append(Character.toLowerCase(c));
+                    } else {
+                        name.append(upperNext ? Character.toUpperCase(c) : c);
+                    }
+                    upperNext = false;
+                } else {
+                    upperNext = true;
+                }
+            }
+
+            if (name.length() == 0) {
+                name.append("column").append(i + 1);
+            } else if (!Character.isJavaIdentifierStart(name.charAt(0))) {
+                name.insert(0, '_');
+            }
+            if (RESERVED_WORDS.contains(name.toString())) {
+                name.append('_');
+            }
+
+            String unique = name.toString();
+            for (int suffix = 2; !used.add(unique); suffix++) {
+                unique = name.toString() + suffix;
+            }
+            names[i] = unique;
+        }
+        return names;
+    }
+
+    private static String javaType(ColumnType type) {
+        switch (type) {
+            case INT:
+                return "int";
+            case LONG:
+                return "long";
+            case DOUBLE:
+                return "double";
+            default:
+                return "String";
+        }
+    }
+
+    private static String parseExpression(String type, String value) {
+        switch (type) {
+            case "int":
+                return "Integer.parseInt(" + value + ")";
+            case "long":
+                return "Long.parseLong(" + value + ")";
+            case "double":
+                return "Double.parseDouble(" + value + ")";
+            default:
+                return value;
+        }
+    }
+
+    private static String equalsExpression(String type, String field) {
+        switch (type) {
+            case "int":
+            case "long":
+                return field + " == other." + field;
+            case "double":
+                return "Double.compare(" + field + ", other." + field + ") == 0";
+            default:
+                return "Objects.equals(" + field + ", other." + field + ")";
+        }
+    }
+
+    private static String getterName(String field) {
+        String name = field.startsWith("_") ? field.substring(1) : field;
+        if (name.endsWith("_")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        String getter = "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        // Object.getClass() is final
+        return "getClass".equals(getter) ? "getClassValue" : getter;
+    }
+
+    private static String stringLiteral(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < ' ' || c > '~') {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+                    break;
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private static String escapeComment(String text) {
+        return text.replace("*/", "*&#47;").replace("\r", " ").replace("\n", " ");
+    }
+}
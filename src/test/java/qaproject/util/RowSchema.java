@@ -0,0 +1,85 @@
+package qaproject.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column layout shared by every row read from the same data source.
+ * Maps each column name to its position so that rows only need to store their values.
+ */
+public class RowSchema {
+    
+    private final String[] columns;
+    private final Map<String, Integer> index = new LinkedHashMap<>();
+    
+    /**
+     * Creates a schema from header names in file order.
+     * If a name appears more than once, the last occurrence wins, as it would in a map.
+     * 
+     * @param columns Column names in file order
+     */
+    public RowSchema(String[] columns) {
+        this.columns = columns.clone();
+        for (int i = 0; i < columns.length; i++) {
+            index.put(columns[i], i);
+        }
+    }
+    
+    /**
+     * Creates a schema from header names in file order.
+     * 
+     * @param columns Column names in file order
+     */
+    public RowSchema(List<String> columns) {
+        this(columns.toArray(new String[0]));
+    }
+    
+    /**
+     * Returns the position of a column.
+     * 
+     * @param column Column name
+     * @return Zero-based column position, or -1 if the column does not exist
+     */
+    public int indexOf(Object column) {
+        Integer position = index.get(column);
+        return position == null ? -1 : position;
+    }
+    
+    /**
+     * Returns the number of physical columns, including duplicate names.
+     * 
+     * @return Number of columns in the header
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+    
+    /**
+     * Returns the column name at a position.
+     * 
+     * @param position Zero-based column position
+     * @return Column name
+     */
+    public String getColumnName(int position) {
+        return columns[position];
+    }
+    
+    /**
+     * Returns the distinct column names in header order.
+     * 
+     * @return Unmodifiable set of column names
+     */
+    public Set<String> getColumnNames() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+    
+    /**
+     * Returns the distinct column names mapped to their positions.
+     */
+    Map<String, Integer> positions() {
+        return index;
+    }
+}
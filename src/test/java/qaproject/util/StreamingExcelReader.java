@@ -0,0 +1,388 @@
+package qaproject.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Streaming reader for Excel (XLSX) files built on POI's event model.
+ * Parses a single sheet's XML with SAX and emits one row at a time, so neither the
+ * workbook DOM nor the other sheets are ever held in memory. Cell values are converted
+ * the same way as {@link ExcelReader}.
+ */
+public class StreamingExcelReader {
+
+    /**
+     * Streams the rows of a sheet to a handler, one row at a time.
+     * The first row of the sheet is used as the header and is not passed to the handler.
+     *
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @param rowHandler Callback invoked for each data row in sheet order
+     * @throws IOException If file cannot be read or the sheet does not exist
+     */
+    public static void readSheet(String filePath, String sheetName, Consumer<DataRow> rowHandler) throws IOException {
+        readSheet(filePath, sheetName, null, rowHandler);
+    }
+
+    /**
+     * Reads all data from a specific sheet in an Excel file without building the workbook DOM.
+     *
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @return List of maps where each map represents a row with column headers as keys
+     * @throws IOException If file cannot be read
+     */
+    public static List<Map<String, String>> readSheet(String filePath, String sheetName) throws IOException {
+        return DataSnapshot.readThrough(filePath, sheetName, "sheet:" + sheetName, () -> {
+            List<Map<String, String>> data = new ArrayList<>();
+            readSheet(filePath, sheetName, data::add);
+            return data;
+        });
+    }
+
+    /**
+     * Reads data from a specific sheet in an Excel file and returns it as a two-dimensional array.
+     * Suitable for use with TestNG DataProvider. Only the rows of the shard configured
+     * through system properties are returned; see {@link DataShard#current()}.
+     *
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readSheetAsDataProvider(String filePath, String sheetName) throws IOException {
+        return readSheetAsDataProvider(filePath, sheetName, DataShard.current());
+    }
+
+    /**
+     * Reads the rows of one shard of a sheet and returns them as a two-dimensional array.
+     * Rows of other shards are dropped as they stream past instead of being collected.
+     *
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @param shard Shard of the rows to return
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readSheetAsDataProvider(String filePath, String sheetName, DataShard shard) throws IOException {
+        List<Object[]> data = new ArrayList<>();
+        int[] rowNumber = new int[1];
+        readSheet(filePath, sheetName, row -> {
+            if (shard.includes(rowNumber[0]++, row)) {
+                data.add(new Object[] { row });
+            }
+        });
+        return data.toArray(new Object[0][]);
+    }
+
+    /**
+     * Reads data from a specific sheet in an Excel file and returns it as a two-dimensional array
+     * with specific columns only. Cells outside the requested columns are skipped while parsing.
+     * Only the rows of the shard configured through system properties are returned; with a shard
+     * configured, its rows are read in full so that hash shards see every value.
+     *
+     * @param filePath Path to the Excel file
+     * @param sheetName Name of the sheet to read
+     * @param columns Array of column names to include
+     * @return Two-dimensional Object array where each inner array contains values for specified columns
+     * @throws IOException If file cannot be read
+     */
+    public static Object[][] readSheetAsDataProvider(String filePath, String sheetName, String[] columns) throws IOException {
+        DataShard shard = DataShard.current();
+        List<Object[]> data = new ArrayList<>();
+        if (shard.isAll()) {
+            readSheet(filePath, sheetName, columns, row -> data.add(project(row, columns)));
+        } else {
+            int[] rowNumber = new int[1];
+            readSheet(filePath, sheetName, row -> {
+                if (shard.includes(rowNumber[0]++, row)) {
+                    data.add(project(row, columns));
+                }
+            });
+        }
+        return data.toArray(new Object[0][]);
+    }
+
+    private static void readSheet(String filePath, String sheetName, String[] columns, Consumer<DataRow> rowHandler)
+            throws IOException {
+        OPCPackage pkg = openPackage(filePath);
+        try {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+
+            while (sheets.hasNext()) {
+                try (InputStream sheetStream = sheets.next()) {
+                    if (sheetName.equals(sheets.getSheetName())) {
+                        processSheet(sheetStream, strings, sheetName, columns, rowHandler);
+                        return;
+                    }
+                }
+            }
+        } catch (SAXException | OpenXML4JException e) {
+            throw new IOException("Failed to read workbook '" + filePath + "'", e);
+        } finally {
+            // Read-only access: discard instead of saving on close
+            pkg.revert();
+        }
+
+        throw new IOException("Sheet '" + sheetName + "' not found in the workbook");
+    }
+
+    /**
+     * Opens an XLSX package for reading.
+     */
+    static OPCPackage openPackage(String filePath) throws IOException {
+        try {
+            return OPCPackage.open(filePath, PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("Failed to open workbook '" + filePath + "'", e);
+        }
+    }
+
+    /**
+     * Parses one sheet's XML stream and emits its data rows.
+     *
+     * @param sheetStream Stream of the sheet part
+     * @param strings Shared strings table of the workbook
+     * @param sheetName Name of the sheet, used in error messages
+     * @param columns Columns to convert, or null to convert every column; other values are left null
+     * @param rowHandler Callback invoked for each data row
+     * @throws IOException If the sheet cannot be parsed
+     */
+    static void processSheet(InputStream sheetStream, ReadOnlySharedStringsTable strings, String sheetName,
+            String[] columns, Consumer<DataRow> rowHandler) throws IOException {
+        try {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new SheetHandler(strings, sheetName, columns, rowHandler));
+            parser.parse(new InputSource(sheetStream));
+        } catch (SAXException e) {
+            if (e.getException() instanceof IOException) {
+                throw (IOException) e.getException();
+            }
+            throw new IOException("Failed to parse sheet '" + sheetName + "'", e);
+        } catch (ParserConfigurationException e) {
+            throw new IOException("Failed to create XML parser", e);
+        }
+    }
+
+    /**
+     * Picks the requested columns out of a row.
+     */
+    static Object[] project(DataRow row, String[] columns) {
+        Object[] values = new Object[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            values[j] = row.get(columns[j]);
+        }
+        return values;
+    }
+
+    /**
+     * SAX handler for a worksheet part. Collects cell values row by row and converts them
+     * with the same rules as {@code ExcelReader.getCellValueAsString}.
+     */
+    private static class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable strings;
+        private final String sheetName;
+        private final String[] columns;
+        private final Consumer<DataRow> rowHandler;
+
+        private final StringBuilder text = new StringBuilder();
+        private List<String> headers = new ArrayList<>();
+        private RowSchema schema;
+        private boolean[] wanted;
+        private String[] rowValues;
+
+        private int nextColumn;
+        private int cellColumn;
+        private String cellType;
+        private boolean cellHasFormula;
+        private boolean collectingText;
+        private boolean inInlineString;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, String sheetName, String[] columns, Consumer<DataRow> rowHandler) {
+            this.strings = strings;
+            this.sheetName = sheetName;
+            this.columns = columns;
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            switch (localName) {
+                case "row":
+                    if (schema == null) {
+                        String rowNumber = attributes.getValue("r");
+                        if (rowNumber != null && !"1".equals(rowNumber)) {
+                            throw new SAXException(new IOException("Header row not found in sheet '" + sheetName + "'"));
+                        }
+                    } else {
+                        rowValues = new String[schema.getColumnCount()];
+                    }
+                    nextColumn = 0;
+                    break;
+                case "c":
+                    String reference = attributes.getValue("r");
+                    cellColumn = reference != null ? columnIndex(reference) : nextColumn;
+                    nextColumn = cellColumn + 1;
+                    cellType = attributes.getValue("t");
+                    cellHasFormula = false;
+                    text.setLength(0);
+                    break;
+                case "f":
+                    cellHasFormula = true;
+                    break;
+                case "is":
+                    inInlineString = true;
+                    break;
+                case "v":
+                    collectingText = isWanted(cellColumn);
+                    break;
+                case "t":
+                    collectingText = inInlineString && isWanted(cellColumn);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collectingText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t":
+                    collectingText = false;
+                    break;
+                case "is":
+                    inInlineString = false;
+                    break;
+                case "c":
+                    endCell();
+                    break;
+                case "row":
+                    endRow();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            if (schema == null) {
+                throw new SAXException(new IOException("Header row not found in sheet '" + sheetName + "'"));
+            }
+        }
+
+        private void endCell() {
+            if (schema == null) {
+                // Header cells are collected in order, like Row.cellIterator()
+                headers.add(cellValue());
+            } else if (cellColumn < rowValues.length && isWanted(cellColumn)) {
+                rowValues[cellColumn] = cellValue();
+            }
+        }
+
+        private void endRow() {
+            if (schema == null) {
+                schema = new RowSchema(headers);
+                headers = null;
+                resolveWantedColumns();
+                return;
+            }
+
+            // Cells that are absent from the XML read as blank
+            for (int i = 0; i < rowValues.length; i++) {
+                if (rowValues[i] == null && isWanted(i)) {
+                    rowValues[i] = "";
+                }
+            }
+            rowHandler.accept(new DataRow(schema, rowValues));
+        }
+
+        private void resolveWantedColumns() {
+            if (columns == null) {
+                return;
+            }
+            wanted = new boolean[schema.getColumnCount()];
+            for (String column : columns) {
+                int index = schema.indexOf(column);
+                if (index >= 0) {
+                    wanted[index] = true;
+                }
+            }
+        }
+
+        private boolean isWanted(int column) {
+            return wanted == null || (column < wanted.length && wanted[column]);
+        }
+
+        /**
+         * Converts the collected cell text according to the cell type attribute.
+         */
+        private String cellValue() {
+            String value = text.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                if (value.isEmpty()) {
+                    return "";
+                }
+                double numericValue = Double.parseDouble(value);
+                // Formula results are read through getNumericCellValue() without integer formatting
+                return cellHasFormula ? String.valueOf(numericValue) : ExcelReader.formatNumericValue(numericValue);
+            }
+
+            switch (cellType) {
+                case "s":
+                    return value.isEmpty() ? "" : strings.getItemAt(Integer.parseInt(value)).getString();
+                case "inlineStr":
+                case "str":
+                    return value;
+                case "b":
+                    return String.valueOf("1".equals(value));
+                default:
+                    return "";
+            }
+        }
+
+        /**
+         * Converts the letters of a cell reference such as "AB12" to a zero-based column index.
+         */
+        private static int columnIndex(String reference) {
+            int column = 0;
+            for (int i = 0; i < reference.length(); i++) {
+                char c = reference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package qaproject.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented, typed copy of a data source.
+ * Each column's type is declared or inferred once when the data set is built; numeric columns
+ * are then stored in {@code int[]}, {@code long[]} or {@code double[]} arrays, so tests read
+ * numbers through {@link TypedRow#getInt(String)} and friends instead of parsing strings on
+ * every invocation.
+ *
+ * <p>Inference only picks a numeric type when every value of the column is the canonical text
+ * of that number (for example {@code "5"} but not {@code "05"} or {@code ""}), so the
+ * {@code Map} view of a {@link TypedRow} returns the same strings as the source.</p>
+ */
+public class TypedDataSet {
+
+    private final RowSchema schema;
+    private final ColumnType[] types;
+    private final Object[] columns; // int[], long[], double[] or String[] per column
+    private final List<TypedRow> rows;
+
+    private TypedDataSet(RowSchema schema, ColumnType[] types, Object[] columns, int rowCount) {
+        this.schema = schema;
+        this.types = types;
+        this.columns = columns;
+
+        List<TypedRow> typedRows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            typedRows.add(new TypedRow(this, i));
+        }
+        this.rows = Collections.unmodifiableList(typedRows);
+    }
+
+    /**
+     * Builds a typed data set, inferring every column's type from its values.
+     *
+     * @param rows Rows as returned by any of the readers
+     * @return Typed data set
+     */
+    public static TypedDataSet of(List<Map<String, String>> rows) {
+        return of(rows, Collections.<String, ColumnType>emptyMap());
+    }
+
+    /**
+     * Builds a typed data set with declared types for some columns; the others are inferred.
+     * Declared numeric columns accept any text the matching {@code parse} method accepts.
+     *
+     * @param rows Rows as returned by any of the readers
+     * @param columnTypes Declared types keyed by column name
+     * @return Typed data set
+     * @throws IllegalArgumentException If a declared column does not exist or one of its values does not fit its type
+     */
+    public static TypedDataSet of(List<Map<String, String>> rows, Map<String, ColumnType> columnTypes) {
+        RowSchema schema = schemaOf(rows);
+        int columnCount = schema.getColumnCount();
+
+        for (String column : columnTypes.keySet()) {
+            // Without rows there is no header to check against
+            if (!rows.isEmpty() && schema.indexOf(column) < 0) {
+                throw new IllegalArgumentException("Column '" + column + "' not found in the data");
+            }
+        }
+
+        ColumnType[] types = new ColumnType[columnCount];
+        Object[] columns = new Object[columnCount];
+        String[] values = new String[rows.size()];
+
+        for (int c = 0; c < columnCount; c++) {
+            String name = schema.getColumnName(c);
+            for (int r = 0; r < values.length; r++) {
+                values[r] = valueOf(rows.get(r), schema, c);
+            }
+
+            ColumnType declared = columnTypes.get(name);
+            types[c] = declared != null ? declared : inferType(values);
+            columns[c] = toColumn(name, types[c], values);
+        }
+
+        return new TypedDataSet(schema, types, columns, values.length);
+    }
+
+    /**
+     * Returns the column layout of the data set.
+     *
+     * @return Row schema
+     */
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Returns the storage type of a column.
+     *
+     * @param column Column name
+     * @return Column type
+     * @throws IllegalArgumentException If the column does not exist
+     */
+    public ColumnType getColumnType(String column) {
+        return types[position(column)];
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return Row count
+     */
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Returns a row by position.
+     *
+     * @param row Zero-based row position
+     * @return Typed row
+     */
+    public TypedRow getRow(int row) {
+        return rows.get(row);
+    }
+
+    /**
+     * Returns all rows in source order.
+     *
+     * @return Unmodifiable list of typed rows
+     */
+    public List<TypedRow> getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the rows as a two-dimensional array for a TestNG DataProvider.
+     *
+     * @return Two-dimensional Object array where each inner array holds one {@link TypedRow}
+     */
+    public Object[][] toDataProvider() {
+        Object[][] data = new Object[rows.size()][1];
+
+        for (int i = 0; i < rows.size(); i++) {
+            data[i][0] = rows.get(i);
+        }
+
+        return data;
+    }
+
+    int position(String column) {
+        int position = schema.indexOf(column);
+        if (position < 0) {
+            throw new IllegalArgumentException("Column '" + column + "' not found in the data");
+        }
+        return position;
+    }
+
+    ColumnType typeAt(int column) {
+        return types[column];
+    }
+
+    int intAt(int column, int row) {
+        switch (types[column]) {
+            case INT:
+                return ((int[]) columns[column])[row];
+            case LONG:
+                return Math.toIntExact(((long[]) columns[column])[row]);
+            default:
+                throw typeMismatch(column, ColumnType.INT);
+        }
+    }
+
+    long longAt(int column, int row) {
+        switch (types[column]) {
+            case INT:
+                return ((int[]) columns[column])[row];
+            case LONG:
+                return ((long[]) columns[column])[row];
+            default:
+                throw typeMismatch(column, ColumnType.LONG);
+        }
+    }
+
+    double doubleAt(int column, int row) {
+        switch (types[column]) {
+            case INT:
+                return ((int[]) columns[column])[row];
+            case LONG:
+                return ((long[]) columns[column])[row];
+            case DOUBLE:
+                return ((double[]) columns[column])[row];
+            default:
+                throw typeMismatch(column, ColumnType.DOUBLE);
+        }
+    }
+
+    String stringAt(int column, int row) {
+        switch (types[column]) {
+            case INT:
+                return Integer.toString(((int[]) columns[column])[row]);
+            case LONG:
+                return Long.toString(((long[]) columns[column])[row]);
+            case DOUBLE:
+                return ExcelReader.formatNumericValue(((double[]) columns[column])[row]);
+            default:
+                return ((String[]) columns[column])[row];
+        }
+    }
+
+    private IllegalStateException typeMismatch(int column, ColumnType requested) {
+        return new IllegalStateException("Column '" + schema.getColumnName(column) + "' is " + types[column]
+                + " and cannot be read as " + requested);
+    }
+
+    private static RowSchema schemaOf(List<Map<String, String>> rows) {
+        if (rows.isEmpty()) {
+            return new RowSchema(new String[0]);
+        }
+        Map<String, String> first = rows.get(0);
+        if (first instanceof DataRow) {
+            return ((DataRow) first).getSchema();
+        }
+        return new RowSchema(new ArrayList<>(first.keySet()));
+    }
+
+    private static String valueOf(Map<String, String> row, RowSchema schema, int column) {
+        String value;
+        if (row instanceof DataRow && ((DataRow) row).getSchema() == schema) {
+            value = ((DataRow) row).get(column);
+        } else {
+            value = row.get(schema.getColumnName(column));
+        }
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Returns the narrowest type whose canonical text matches every value.
+     */
+    private static ColumnType inferType(String[] values) {
+        if (values.length == 0) {
+            return ColumnType.STRING;
+        }
+        ColumnType type = ColumnType.INT;
+        for (String value : values) {
+            while (type != ColumnType.STRING && !isCanonical(value, type)) {
+                type = ColumnType.values()[type.ordinal() + 1];
+            }
+            if (type == ColumnType.STRING) {
+                break;
+            }
+        }
+        return type;
+    }
+
+    private static boolean isCanonical(String value, ColumnType type) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        if (first != '-' && (first < '0' || first > '9')) {
+            // Rules out words, including "NaN" and "Infinity", without paying for an exception
+            return false;
+        }
+        try {
+            switch (type) {
+                case INT:
+                    return Integer.toString(Integer.parseInt(value)).equals(value);
+                case LONG:
+                    return Long.toString(Long.parseLong(value)).equals(value);
+                case DOUBLE:
+                    return ExcelReader.formatNumericValue(Double.parseDouble(value)).equals(value);
+                default:
+                    return true;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static Object toColumn(String name, ColumnType type, String[] values) {
+        int row = 0;
+        try {
+            switch (type) {
+                case INT:
+                    int[] ints = new int[values.length];
+                    for (; row < values.length; row++) {
+                        ints[row] = Integer.parseInt(values[row].trim());
+                    }
+                    return ints;
+                case LONG:
+                    long[] longs = new long[values.length];
+                    for (; row < values.length; row++) {
+                        longs[row] = Long.parseLong(values[row].trim());
+                    }
+                    return longs;
+                case DOUBLE:
+                    double[] doubles = new double[values.length];
+                    for (; row < values.length; row++) {
+                        doubles[row] = Double.parseDouble(values[row].trim());
+                    }
+                    return doubles;
+                default:
+                    return values.clone();
+            }
+        } catch (NumberFormatException e) {
+            // Inferred types always parse; only declared types can get here
+            throw new IllegalArgumentException("Value '" + values[row] + "' in row " + (row + 1) + " of column '"
+                    + name + "' is not a valid " + type, e);
+        }
+    }
+}
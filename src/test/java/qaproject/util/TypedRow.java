@@ -0,0 +1,72 @@
+package qaproject.util;
+
+/**
+ * Row of a {@link TypedDataSet}.
+ * Numeric values are read straight from the data set's primitive column arrays through the
+ * typed accessors; the {@code Map} view formats them back to text, so existing
+ * {@code testData.get("column")} calls keep working.
+ */
+public class TypedRow extends DataRow {
+
+    private final TypedDataSet data;
+    private final int row;
+
+    TypedRow(TypedDataSet data, int row) {
+        super(data.getSchema());
+        this.data = data;
+        this.row = row;
+    }
+
+    /**
+     * Returns the type of a column.
+     *
+     * @param column Column name
+     * @return Column type
+     * @throws IllegalArgumentException If the column does not exist
+     */
+    public ColumnType getType(String column) {
+        return data.typeAt(data.position(column));
+    }
+
+    /**
+     * Returns a value of an {@code INT} column, or of a {@code LONG} column if it fits in an int.
+     *
+     * @param column Column name
+     * @return Column value
+     * @throws IllegalArgumentException If the column does not exist
+     * @throws IllegalStateException If the column is not a whole-number column
+     * @throws ArithmeticException If a {@code LONG} value does not fit in an int
+     */
+    public int getInt(String column) {
+        return data.intAt(data.position(column), row);
+    }
+
+    /**
+     * Returns a value of an {@code INT} or {@code LONG} column.
+     *
+     * @param column Column name
+     * @return Column value
+     * @throws IllegalArgumentException If the column does not exist
+     * @throws IllegalStateException If the column is not a whole-number column
+     */
+    public long getLong(String column) {
+        return data.longAt(data.position(column), row);
+    }
+
+    /**
+     * Returns a value of any numeric column.
+     *
+     * @param column Column name
+     * @return Column value
+     * @throws IllegalArgumentException If the column does not exist
+     * @throws IllegalStateException If the column is a {@code STRING} column
+     */
+    public double getDouble(String column) {
+        return data.doubleAt(data.position(column), row);
+    }
+
+    @Override
+    String value(int column) {
+        return data.stringAt(column, row);
+    }
+}
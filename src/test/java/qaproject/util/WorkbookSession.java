@@ -0,0 +1,253 @@
+package qaproject.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.SAXException;
+
+/**
+ * Handle on an Excel (XLSX) file that is opened once and serves many sheets.
+ * The package and its shared-strings table are loaded a single time; each sheet is then
+ * streamed with the same event-based parser as {@link StreamingExcelReader}. Independent
+ * sheets can be parsed in parallel.
+ *
+ * <p>Every open session is tracked and closed by {@link #closeAll()}, which
+ * {@code CustomTestListener} calls when the suite finishes.</p>
+ */
+public class WorkbookSession implements Closeable {
+
+    private static final Set<WorkbookSession> OPEN_SESSIONS = ConcurrentHashMap.newKeySet();
+    private static final Map<String, WorkbookSession> SHARED_SESSIONS = new ConcurrentHashMap<>();
+
+    private final String filePath;
+    private final OPCPackage pkg;
+    private final ReadOnlySharedStringsTable strings;
+    private final Map<String, PackagePart> sheetParts = new LinkedHashMap<>();
+    private volatile boolean closed;
+
+    private WorkbookSession(String filePath) throws IOException {
+        this.filePath = filePath;
+        this.pkg = StreamingExcelReader.openPackage(filePath);
+
+        try {
+            this.strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                // Only the part is kept; its stream is reopened on every read
+                sheets.next().close();
+                sheetParts.put(sheets.getSheetName(), sheets.getSheetPart());
+            }
+        } catch (SAXException | OpenXML4JException e) {
+            pkg.revert();
+            throw new IOException("Failed to read workbook '" + filePath + "'", e);
+        } catch (IOException e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a workbook for reading. The caller should close the session when done;
+     * any session still open at the end of the suite is closed by {@link #closeAll()}.
+     *
+     * @param filePath Path to the Excel file
+     * @return Open workbook session
+     * @throws IOException If file cannot be read
+     */
+    public static WorkbookSession open(String filePath) throws IOException {
+        WorkbookSession session = new WorkbookSession(filePath);
+        OPEN_SESSIONS.add(session);
+        return session;
+    }
+
+    /**
+     * Returns a session for the given file that is shared by every caller in the suite,
+     * opening it on first use. Shared sessions must not be closed by callers.
+     *
+     * @param filePath Path to the Excel file
+     * @return Shared workbook session
+     * @throws IOException If file cannot be read
+     */
+    public static WorkbookSession shared(String filePath) throws IOException {
+        WorkbookSession session = SHARED_SESSIONS.get(filePath);
+        if (session != null && !session.closed) {
+            return session;
+        }
+        synchronized (SHARED_SESSIONS) {
+            session = SHARED_SESSIONS.get(filePath);
+            if (session == null || session.closed) {
+                session = open(filePath);
+                SHARED_SESSIONS.put(filePath, session);
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Closes every session that is still open, including shared ones.
+     */
+    public static void closeAll() {
+        for (WorkbookSession session : OPEN_SESSIONS) {
+            session.close();
+        }
+        SHARED_SESSIONS.clear();
+    }
+
+    /**
+     * Returns the names of the sheets in workbook order.
+     *
+     * @return Unmodifiable set of sheet names
+     */
+    public Set<String> getSheetNames() {
+        return Collections.unmodifiableSet(sheetParts.keySet());
+    }
+
+    /**
+     * Reads all data from a sheet of this workbook.
+     *
+     * @param sheetName Name of the sheet to read
+     * @return List of maps where each map represents a row with column headers as keys
+     * @throws IOException If the sheet cannot be read
+     */
+    public List<Map<String, String>> readSheet(String sheetName) throws IOException {
+        List<Map<String, String>> data = new ArrayList<>();
+        processSheet(sheetName, null, data::add);
+        return data;
+    }
+
+    /**
+     * Reads data from a sheet of this workbook and returns it as a two-dimensional array.
+     * Suitable for use with TestNG DataProvider. Only the rows of the shard configured
+     * through system properties are returned; see {@link DataShard#current()}.
+     *
+     * @param sheetName Name of the sheet to read
+     * @return Two-dimensional Object array where each inner array represents a row of data
+     * @throws IOException If the sheet cannot be read
+     */
+    public Object[][] readSheetAsDataProvider(String sheetName) throws IOException {
+        DataShard shard = DataShard.current();
+        List<Object[]> data = new ArrayList<>();
+        int[] rowNumber = new int[1];
+        processSheet(sheetName, null, row -> {
+            if (shard.includes(rowNumber[0]++, row)) {
+                data.add(new Object[] { row });
+            }
+        });
+        return data.toArray(new Object[0][]);
+    }
+
+    /**
+     * Reads data from a sheet of this workbook and returns it as a two-dimensional array
+     * with specific columns only. Only the rows of the shard configured through system properties
+     * are returned; with a shard configured, its rows are read in full so that hash shards see every value.
+     *
+     * @param sheetName Name of the sheet to read
+     * @param columns Array of column names to include
+     * @return Two-dimensional Object array where each inner array contains values for specified columns
+     * @throws IOException If the sheet cannot be read
+     */
+    public Object[][] readSheetAsDataProvider(String sheetName, String[] columns) throws IOException {
+        DataShard shard = DataShard.current();
+        List<Object[]> data = new ArrayList<>();
+        int[] rowNumber = new int[1];
+        processSheet(sheetName, shard.isAll() ? columns : null, row -> {
+            if (shard.includes(rowNumber[0]++, row)) {
+                data.add(StreamingExcelReader.project(row, columns));
+            }
+        });
+        return data.toArray(new Object[0][]);
+    }
+
+    /**
+     * Reads several sheets of this workbook.
+     *
+     * @param sheetNames Names of the sheets to read
+     * @param parallel Whether to parse the sheets concurrently on the common fork-join pool
+     * @return Sheet data keyed by sheet name, in the requested order
+     * @throws IOException If any sheet cannot be read
+     */
+    public Map<String, List<Map<String, String>>> readSheets(String[] sheetNames, boolean parallel) throws IOException {
+        Map<String, List<Map<String, String>>> result = new LinkedHashMap<>();
+
+        if (!parallel) {
+            for (String sheetName : sheetNames) {
+                result.put(sheetName, readSheet(sheetName));
+            }
+            return result;
+        }
+
+        List<CompletableFuture<List<Map<String, String>>>> futures = new ArrayList<>();
+        for (String sheetName : sheetNames) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readSheet(sheetName);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }));
+        }
+
+        for (int i = 0; i < sheetNames.length; i++) {
+            try {
+                result.put(sheetNames[i], futures.get(i).join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    private void processSheet(String sheetName, String[] columns, Consumer<DataRow> rowHandler)
+            throws IOException {
+        if (closed) {
+            throw new IOException("Workbook session for '" + filePath + "' is closed");
+        }
+
+        PackagePart part = sheetParts.get(sheetName);
+        if (part == null) {
+            throw new IOException("Sheet '" + sheetName + "' not found in the workbook");
+        }
+
+        InputStream sheetStream;
+        synchronized (pkg) {
+            sheetStream = part.getInputStream();
+        }
+        try (InputStream stream = sheetStream) {
+            StreamingExcelReader.processSheet(stream, strings, sheetName, columns, rowHandler);
+        }
+    }
+
+    /**
+     * Releases the underlying package. Closing an already closed session has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        OPEN_SESSIONS.remove(this);
+        // Read-only access: discard instead of saving on close
+        pkg.revert();
+    }
+}